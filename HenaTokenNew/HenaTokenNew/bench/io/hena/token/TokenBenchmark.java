@@ -0,0 +1,124 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.Block;
+import io.nuls.contract.sdk.Msg;
+import io.nuls.contract.sdk.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of the token on the stand-in SDK, across holder counts and locks per address.
+ * Every holder gets a balance, but only a working set of WORKING_SET holders carries the
+ * locks and is used by the measured calls, so 100 locks per address stay affordable at 1M holders.
+ * Events are cleared inside the measured calls so they do not pile up between iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class TokenBenchmark {
+
+    private static final int WORKING_SET = 1024;
+    private static final long NOW = 1000000;
+    private static final BigInteger ONE = BigInteger.ONE;
+
+    @Param({"1000", "100000", "1000000"})
+    public int holders;
+
+    @Param({"0", "10", "100"})
+    public int locks;
+
+    private HenaToken token;
+    private Address owner;
+    private Address spender;
+    private Address[] workingSet;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void deploy() {
+        Block.setTimestamp(NOW * 1000);
+        owner = new Address("owner");
+        spender = new Address("spender");
+        Msg.setSender(owner);
+        token = new HenaToken("Hena", "HENA", owner, owner, new String[]{"owner"}, new long[]{900000000L});
+
+        BigInteger holderAmount = BigInteger.valueOf(100 * 100000000L);
+        for (int i = 0; i < holders; i++) {
+            token.transfer(new Address("h" + i), holderAmount);
+            if (i % 10000 == 0) {
+                Utils.clearEvents();
+            }
+        }
+
+        workingSet = new Address[Math.min(WORKING_SET, holders)];
+        BigInteger allowance = BigInteger.valueOf(Long.MAX_VALUE / 2);
+        for (int i = 0; i < workingSet.length; i++) {
+            workingSet[i] = new Address("h" + i);
+            for (int j = 0; j < locks; j++) {
+                token.transferLock(workingSet[i], ONE, NOW + 1000000 + j);
+            }
+            Msg.setSender(workingSet[i]);
+            token.approve(spender, allowance);
+            Msg.setSender(owner);
+            Utils.clearEvents();
+        }
+    }
+
+    private Address nextHolder() {
+        int i = next;
+        next = i + 1 == workingSet.length ? 0 : i + 1;
+        return workingSet[i];
+    }
+
+    @Benchmark
+    public boolean transfer() {
+        Address from = nextHolder();
+        Msg.setSender(from);
+        boolean result = token.transfer(workingSet[next], ONE);
+        Utils.clearEvents();
+        return result;
+    }
+
+    @Benchmark
+    public boolean transferFrom() {
+        Address from = nextHolder();
+        Msg.setSender(spender);
+        boolean result = token.transferFrom(from, workingSet[next], ONE);
+        Utils.clearEvents();
+        return result;
+    }
+
+    @Benchmark
+    public BigInteger availableBalanceOf() {
+        return token.availableBalanceOf(nextHolder());
+    }
+
+    @Benchmark
+    public boolean transferPOCM() {
+        Msg.setSender(owner);
+        boolean result = token.transferPOCM(nextHolder(), ONE, NOW + 2000000);
+        Utils.clearEvents();
+        return result;
+    }
+
+    @Benchmark
+    public String getLockState() {
+        return token.getLockState(nextHolder());
+    }
+}
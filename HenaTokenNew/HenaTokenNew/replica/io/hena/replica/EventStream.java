@@ -0,0 +1,129 @@
+package io.hena.replica;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Feeds a text stream of token events into a {@link TokenReplica}, one event per line:
+ * <pre>
+ * transfer &lt;from&gt; &lt;to&gt; &lt;value&gt;      from is - for a genesis credit
+ * approval &lt;owner&gt; &lt;spender&gt; &lt;value&gt;
+ * burn &lt;value&gt;
+ * </pre>
+ * Values are in the smallest unit. Blank lines and lines starting with # are skipped and do not
+ * count as events. Events the replica has already applied, for example because it was restored
+ * from a snapshot, are skipped as well, so a replay can always start at the top of the stream.
+ */
+public class EventStream {
+
+    public static final String TRANSFER = "transfer";
+    public static final String APPROVAL = "approval";
+    public static final String BURN = "burn";
+    public static final String MINT = "-";
+
+    private final TokenReplica replica;
+    private final File snapshot;
+    private final long snapshotEvery;
+
+    /**
+     * @param snapshot      file to checkpoint the replica to, or null to keep it in memory only
+     * @param snapshotEvery events between two snapshots; one is always written at the end of a replay
+     */
+    public EventStream(TokenReplica replica, File snapshot, long snapshotEvery) {
+        if (snapshotEvery <= 0) {
+            throw new IllegalArgumentException("snapshotEvery must be positive");
+        }
+        this.replica = replica;
+        this.snapshot = snapshot;
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    public EventStream(TokenReplica replica) {
+        this(replica, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * Applies every event of the stream the replica has not seen yet. Returns the number applied.
+     */
+    public long replay(Reader source) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source, 1 << 16);
+        long skip = replica.appliedEvents();
+        long seen = 0;
+        long applied = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            if (seen++ < skip) {
+                continue;
+            }
+            try {
+                apply(line);
+            } catch (RuntimeException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+            applied++;
+            if (snapshot != null && applied % snapshotEvery == 0) {
+                replica.writeSnapshot(snapshot);
+            }
+        }
+        if (snapshot != null) {
+            replica.writeSnapshot(snapshot);
+        }
+        return applied;
+    }
+
+    public long replay(File events) throws IOException {
+        Reader reader = Files.newBufferedReader(events.toPath(), StandardCharsets.UTF_8);
+        try {
+            return replay(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void apply(String line) {
+        String[] fields = line.split("\\s+");
+        String type = fields[0];
+        if (type.equals(TRANSFER) && fields.length == 4) {
+            replica.transfer(fields[1].equals(MINT) ? null : fields[1], fields[2], Long.parseLong(fields[3]));
+        } else if (type.equals(APPROVAL) && fields.length == 4) {
+            replica.approval(fields[1], fields[2], new BigInteger(fields[3]));
+        } else if (type.equals(BURN) && fields.length == 2) {
+            replica.burn(Long.parseLong(fields[1]));
+        } else {
+            throw new IllegalArgumentException("Unknown event: " + line);
+        }
+    }
+
+    /**
+     * Usage: EventStream &lt;events file or -&gt; &lt;snapshot file&gt; &lt;owner&gt; &lt;initial total supply&gt; [snapshot every].
+     * Events are read from standard input when the file is -. An existing snapshot is resumed from.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: EventStream <events file or -> <snapshot file> <owner> <initial total supply> [snapshot every]");
+            System.exit(2);
+        }
+        File snapshot = new File(args[1]);
+        TokenReplica replica = snapshot.exists() ? TokenReplica.readSnapshot(snapshot)
+                : new TokenReplica(args[2], Long.parseLong(args[3]));
+        EventStream stream = new EventStream(replica, snapshot, args.length > 4 ? Long.parseLong(args[4]) : 100000);
+        long started = System.nanoTime();
+        long applied = args[0].equals("-")
+                ? stream.replay(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : stream.replay(new File(args[0]));
+        System.out.println("Applied " + applied + " events in " + (System.nanoTime() - started) / 1000000 + " ms; "
+                + replica.holderCount() + " holders, total supply " + replica.totalSupply());
+    }
+}
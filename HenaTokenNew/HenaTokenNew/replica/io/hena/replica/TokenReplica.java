@@ -0,0 +1,256 @@
+package io.hena.replica;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Off-chain copy of the HenaToken balances, allowances and total supply, rebuilt from the
+ * Transfer, Approval and Burn events the contract emits.
+ * <p>
+ * It follows the contract rules: a transfer without a from address is a genesis credit and leaves
+ * the total supply alone, a burn takes the value from the owner's balance and from the total supply,
+ * an approval sets the allowance to the given value, 2^63 or more meaning unlimited, and zero
+ * balances and allowances are dropped. transferFrom reports the allowance left over with its own
+ * Approval event, so allowances need no special handling.
+ * <p>
+ * Balances live in one long array indexed through a single address map. A snapshot records the
+ * whole state together with the number of events applied, so a replay can resume from it.
+ */
+public class TokenReplica {
+
+    private static final int SNAPSHOT_MAGIC = 0x48454e41;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final long UNLIMITED_ALLOWANCE = Long.MAX_VALUE;
+
+    private final String owner;
+    private long totalSupply;
+    private long appliedEvents;
+
+    private final Map<String, Integer> slots = new HashMap<String, Integer>();
+    private String[] addresses = new String[1024];
+    private long[] balances = new long[1024];
+    private int holders;
+    // "owner spender" -> allowance
+    private final Map<String, Long> allowances = new HashMap<String, Long>();
+
+    /**
+     * A replica of a freshly deployed token: all of the supply is still unallocated.
+     */
+    public TokenReplica(String owner, long totalSupply) {
+        this.owner = owner;
+        this.totalSupply = totalSupply;
+    }
+
+    public String owner() {
+        return owner;
+    }
+
+    public long totalSupply() {
+        return totalSupply;
+    }
+
+    /**
+     * Number of events applied since deployment, including those restored from a snapshot.
+     */
+    public long appliedEvents() {
+        return appliedEvents;
+    }
+
+    public long balanceOf(String address) {
+        Integer slot = slots.get(address);
+        return slot == null ? 0 : balances[slot];
+    }
+
+    public long allowance(String owner, String spender) {
+        Long value = allowances.get(allowanceKey(owner, spender));
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * Addresses that ever held a balance, in the order they were first seen.
+     */
+    public String[] addresses() {
+        return Arrays.copyOf(addresses, slots.size());
+    }
+
+    public int holderCount() {
+        return holders;
+    }
+
+    public int allowanceCount() {
+        return allowances.size();
+    }
+
+    /**
+     * Applies a Transfer event; from is null for a genesis credit.
+     */
+    public void transfer(String from, String to, long value) {
+        requireAmount(value);
+        if (from != null) {
+            debit(from, value);
+        }
+        credit(to, value);
+        appliedEvents++;
+    }
+
+    public void approval(String owner, String spender, BigInteger value) {
+        if (value.signum() < 0) {
+            throw new IllegalArgumentException("Negative allowance " + value);
+        }
+        long allowance = value.bitLength() >= 64 ? UNLIMITED_ALLOWANCE : value.longValue();
+        String key = allowanceKey(owner, spender);
+        if (allowance == 0) {
+            allowances.remove(key);
+        } else {
+            allowances.put(key, allowance);
+        }
+        appliedEvents++;
+    }
+
+    public void burn(long value) {
+        requireAmount(value);
+        debit(owner, value);
+        totalSupply -= value;
+        appliedEvents++;
+    }
+
+    private void credit(String address, long value) {
+        int slot = slot(address);
+        if (balances[slot] == 0 && value > 0) {
+            holders++;
+        }
+        balances[slot] += value;
+    }
+
+    private void debit(String address, long value) {
+        Integer slot = slots.get(address);
+        long balance = slot == null ? 0 : balances[slot];
+        if (balance < value) {
+            throw new IllegalStateException("Event " + appliedEvents + " takes " + value + " from "
+                    + address + " holding " + balance + "; the stream is incomplete or out of order");
+        }
+        if (value == 0) {
+            return;
+        }
+        balances[slot] = balance - value;
+        if (balances[slot] == 0) {
+            holders--;
+        }
+    }
+
+    private int slot(String address) {
+        Integer slot = slots.get(address);
+        if (slot != null) {
+            return slot;
+        }
+        int next = slots.size();
+        if (next == balances.length) {
+            addresses = Arrays.copyOf(addresses, next * 2);
+            balances = Arrays.copyOf(balances, next * 2);
+        }
+        addresses[next] = address;
+        slots.put(address, next);
+        return next;
+    }
+
+    private static void requireAmount(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative amount " + value);
+        }
+    }
+
+    private static String allowanceKey(String owner, String spender) {
+        return owner + ' ' + spender;
+    }
+
+    /**
+     * Writes the whole state to file. The file is replaced in one step, so a crash leaves the previous snapshot.
+     */
+    public void writeSnapshot(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        parent.mkdirs();
+        File temp = new File(parent, file.getName() + ".tmp");
+        OutputStream stream = new BufferedOutputStream(Files.newOutputStream(temp.toPath()));
+        DataOutputStream out = new DataOutputStream(stream);
+        try {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            writeString(out, owner);
+            out.writeLong(appliedEvents);
+            out.writeLong(totalSupply);
+            int count = 0;
+            for (int i = 0; i < slots.size(); i++) {
+                if (balances[i] != 0) {
+                    count++;
+                }
+            }
+            out.writeInt(count);
+            for (int i = 0; i < slots.size(); i++) {
+                if (balances[i] != 0) {
+                    writeString(out, addresses[i]);
+                    out.writeLong(balances[i]);
+                }
+            }
+            out.writeInt(allowances.size());
+            for (Map.Entry<String, Long> entry : allowances.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+        } finally {
+            out.close();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restores a replica from a snapshot, reading the file through a memory mapping.
+     */
+    public static TokenReplica readSnapshot(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != SNAPSHOT_MAGIC || in.getInt() != SNAPSHOT_VERSION) {
+                throw new IOException(file + " is not a token replica snapshot");
+            }
+            String owner = readString(in);
+            long appliedEvents = in.getLong();
+            TokenReplica replica = new TokenReplica(owner, in.getLong());
+            for (int count = in.getInt(); count > 0; count--) {
+                replica.credit(readString(in), in.getLong());
+            }
+            for (int count = in.getInt(); count > 0; count--) {
+                replica.allowances.put(readString(in), in.getLong());
+            }
+            replica.appliedEvents = appliedEvents;
+            return replica;
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,68 @@
+package io.nuls.contract.sdk;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stand-in for the VM address type. Any string is accepted as an address and
+ * cross-contract calls are recorded instead of executed.
+ */
+public class Address {
+
+    private static final List<String> calls = new ArrayList<String>();
+
+    private final String address;
+
+    public Address(String address) {
+        this.address = address;
+    }
+
+    public BigInteger balance() {
+        return BigInteger.ZERO;
+    }
+
+    public void transfer(BigInteger value) {
+    }
+
+    public void call(String methodName, String methodDesc, String[][] args, BigInteger value) {
+        StringBuilder call = new StringBuilder(address).append('.').append(methodName);
+        for (String[] arg : args) {
+            call.append(' ').append(arg[0]);
+        }
+        calls.add(call.toString());
+    }
+
+    public String callWithReturnValue(String methodName, String methodDesc, String[][] args, BigInteger value) {
+        call(methodName, methodDesc, args, value);
+        return "";
+    }
+
+    /**
+     * Calls made through {@link #call} since the last {@link #clearCalls()}, as "target.method arg...".
+     */
+    public static List<String> calls() {
+        return calls;
+    }
+
+    public static void clearCalls() {
+        calls.clear();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return address.equals(((Address) o).address);
+    }
+
+    @Override
+    public int hashCode() {
+        return address.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return address;
+    }
+}
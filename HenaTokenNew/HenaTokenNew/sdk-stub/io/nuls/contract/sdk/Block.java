@@ -0,0 +1,26 @@
+package io.nuls.contract.sdk;
+
+/**
+ * Stand-in for the current block. Tests move the clock with {@link #setTimestamp(long)}.
+ */
+public class Block {
+
+    private static long timestamp = 1000000L;
+    private static long number = 1;
+
+    public static long timestamp() {
+        return timestamp;
+    }
+
+    public static long number() {
+        return number;
+    }
+
+    public static void setTimestamp(long millis) {
+        timestamp = millis;
+    }
+
+    public static void setNumber(long height) {
+        number = height;
+    }
+}
@@ -0,0 +1,4 @@
+package io.nuls.contract.sdk;
+
+public interface Event {
+}
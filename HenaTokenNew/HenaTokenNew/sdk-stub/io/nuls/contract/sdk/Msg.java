@@ -0,0 +1,45 @@
+package io.nuls.contract.sdk;
+
+import java.math.BigInteger;
+
+/**
+ * Stand-in for the message of the current call. Tests pick the caller with {@link #setSender(Address)}.
+ */
+public class Msg {
+
+    private static Address sender = new Address("sender");
+    private static Address address = new Address("contract");
+    private static BigInteger value = BigInteger.ZERO;
+
+    public static long gasleft() {
+        return Long.MAX_VALUE;
+    }
+
+    public static Address sender() {
+        return sender;
+    }
+
+    public static BigInteger value() {
+        return value;
+    }
+
+    public static long gasprice() {
+        return 0;
+    }
+
+    public static Address address() {
+        return address;
+    }
+
+    public static void setSender(Address caller) {
+        sender = caller;
+    }
+
+    public static void setAddress(Address contract) {
+        address = contract;
+    }
+
+    public static void setValue(BigInteger amount) {
+        value = amount;
+    }
+}
@@ -0,0 +1,11 @@
+package io.nuls.contract.sdk;
+
+/**
+ * Thrown by the stand-in {@link Utils} where the VM would revert the transaction.
+ */
+public class RevertException extends RuntimeException {
+
+    public RevertException(String message) {
+        super(message);
+    }
+}
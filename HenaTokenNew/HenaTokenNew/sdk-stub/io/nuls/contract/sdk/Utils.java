@@ -0,0 +1,48 @@
+package io.nuls.contract.sdk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stand-in for the VM utilities. A failed require or a revert throws {@link RevertException},
+ * and emitted events are collected in order.
+ */
+public class Utils {
+
+    private static final List<Event> events = new ArrayList<Event>();
+
+    public static void require(boolean expression) {
+        if (!expression) {
+            revert();
+        }
+    }
+
+    public static void require(boolean expression, String errorMessage) {
+        if (!expression) {
+            revert(errorMessage);
+        }
+    }
+
+    public static void revert() {
+        revert(null);
+    }
+
+    public static void revert(String errorMessage) {
+        throw new RevertException(errorMessage);
+    }
+
+    public static void emit(Event event) {
+        events.add(event);
+    }
+
+    /**
+     * Events emitted since the last {@link #clearEvents()}.
+     */
+    public static List<Event> events() {
+        return events;
+    }
+
+    public static void clearEvents() {
+        events.clear();
+    }
+}
@@ -8,23 +8,96 @@ import io.nuls.contract.sdk.annotation.View;
 
 import java.math.BigInteger;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import static io.nuls.contract.sdk.Utils.emit;
 import static io.nuls.contract.sdk.Utils.require;
+import static io.nuls.contract.sdk.Utils.revert;
 
 public class HenaToken extends LockMgr implements  Token, Contract {
 
     private final String name;
     private final String symbol;
     private final int decimals;
-    private BigInteger totalSupply;
-
-    private Map<Address, BigInteger> balances = new HashMap<Address, BigInteger>();
-    private Map<Address, Map<Address, BigInteger>> allowed = new HashMap<Address, Map<Address, BigInteger>>();
+    private final long unit;
+    private long totalSupply;
+    private long genesisDistributed = 0;
+    private boolean genesisFinished = false;
+    private int totalSupplyCheckpointCount;
+    // (owner, n) -> n-th (time, value) checkpoint of owner's balance, at most one per block time.
+    // The null owner holds the total supply history.
+    private Map<CheckpointKey, Checkpoint> checkpoints = new HashMap<CheckpointKey, Checkpoint>();
+
+    // Addresses with a non-zero balance, in the order they became holders.
+    private AddressIndex holders = new AddressIndex();
+    private Map<AllowanceKey, Long> allowed = new HashMap<AllowanceKey, Long>();
+    // Larger than any balance, so transferFrom never spends it down.
+    private static final long UNLIMITED_ALLOWANCE = Long.MAX_VALUE;
+    // (holder, operator) pairs allowed to move any amount of the holder's tokens.
+    private Set<AllowanceKey> operators = new HashSet<AllowanceKey>();
 
     private Address POCMAddress;
 
+    private static class AllowanceKey {
+        private final Address owner;
+        private final Address spender;
+
+        AllowanceKey(Address owner, Address spender) {
+            this.owner = owner;
+            this.spender = spender;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            AllowanceKey that = (AllowanceKey) o;
+            return owner.equals(that.owner) && spender.equals(that.spender);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * owner.hashCode() + spender.hashCode();
+        }
+    }
+
+    private static class CheckpointKey {
+        private final Address owner;
+        private final int index;
+
+        CheckpointKey(Address owner, int index) {
+            this.owner = owner;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            CheckpointKey that = (CheckpointKey) o;
+            return index == that.index && (owner != null ? owner.equals(that.owner) : that.owner == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (owner != null ? owner.hashCode() : 0) + index;
+        }
+    }
+
+    private static class Checkpoint {
+        private final long time;
+        private long value;
+
+        Checkpoint(long time, long value) {
+            this.time = time;
+            this.value = value;
+        }
+    }
+
     @Override
     @View
     public String name() {
@@ -46,7 +119,7 @@ public class HenaToken extends LockMgr implements  Token, Contract {
     @Override
     @View
     public BigInteger totalSupply() {
-        return totalSupply;
+        return BigInteger.valueOf(totalSupply);
     }
 
     public HenaToken(@Required String name, @Required String symbol, @Required Address owner, @Required Address manager, String[] receiverAddress, long[] receiverAmount) {
@@ -55,35 +128,69 @@ public class HenaToken extends LockMgr implements  Token, Contract {
         this.name = name;
         this.symbol = symbol;
         this.decimals = 8;
-        BigInteger initialAmount = BigInteger.valueOf(1000000000);
-        this.totalSupply = initialAmount.multiply(BigInteger.TEN.pow(decimals));
+        long initialAmount = 1000000000L;
+        this.unit = BigInteger.TEN.pow(decimals).longValue();
+        this.totalSupply = initialAmount * unit;
+        this.totalSupplyCheckpointCount = recordCheckpoint(null, 0, getTime(), totalSupply);
         this.POCMAddress = owner;
 
-        BigInteger receiverTotalAmount = BigInteger.ZERO;
         if(receiverAddress!=null && receiverAmount!=null){
-            require(receiverAddress.length==receiverAmount.length);
-            BigInteger tempReceiverAmount = BigInteger.ZERO;
-            for(int i = 0; i< receiverAddress.length; i++){
-                Address tempReceiverAddress = new Address(receiverAddress[i]);
-                tempReceiverAmount = BigInteger.valueOf(receiverAmount[i]).multiply(BigInteger.TEN.pow(decimals));
-                balances.put(tempReceiverAddress, tempReceiverAmount);
-                receiverTotalAmount  = receiverTotalAmount.add(tempReceiverAmount);
-                setImportantAddress(receiverAddress[i]);
-                emit(new TransferEvent(owner,tempReceiverAddress, tempReceiverAmount));
-            }
+            distribute(receiverAddress, receiverAmount);
+        }
+    }
+
+    public boolean distributeGenesis(@Required String[] receiverAddress, @Required long[] receiverAmount) {
+        requireOwner(Msg.sender());
+        require(!genesisFinished, "Finished genesis distribution");
+        distribute(receiverAddress, receiverAmount);
+        return true;
+    }
+
+    public boolean finishGenesis() {
+        requireOwner(Msg.sender());
+        genesisFinished = true;
+        return true;
+    }
+
+    @View
+    public boolean getGenesisFinished() {
+        return genesisFinished;
+    }
+
+    @View
+    public BigInteger getGenesisDistributed() {
+        return BigInteger.valueOf(genesisDistributed);
+    }
+
+    // Genesis credits come out of the unallocated supply, not out of the owner's balance, so they
+    // are emitted as mints (no from address) and an event consumer cannot mistake them for owner transfers.
+    private void distribute(String[] receiverAddress, long[] receiverAmount) {
+        require(receiverAddress.length==receiverAmount.length);
+        long chunkAmount = 0;
+        for(int i = 0; i< receiverAddress.length; i++){
+            require(receiverAmount[i] >= 0, "The value must be greater than or equal to 0.");
+            require(receiverAmount[i] <= totalSupply / unit, "Genesis distribution exceeds total supply");
+            Address tempReceiverAddress = new Address(receiverAddress[i]);
+            long tempReceiverAmount = receiverAmount[i] * unit;
+            addBalance(tempReceiverAddress, tempReceiverAmount);
+            chunkAmount = safeAdd(chunkAmount, tempReceiverAmount);
+            importantAddress.add(tempReceiverAddress);
+            emit(new TransferEvent(null, tempReceiverAddress, BigInteger.valueOf(tempReceiverAmount)));
         }
+        genesisDistributed = safeAdd(genesisDistributed, chunkAmount);
+        require(genesisDistributed <= totalSupply, "Genesis distribution exceeds total supply");
     }
 
     @Override
     @View
     public BigInteger allowance(@Required Address owner, @Required Address spender) {
-        Map<Address, BigInteger> ownerAllowed = allowed.get(owner);
-        if (ownerAllowed == null) {
-            return BigInteger.ZERO;
-        }
-        BigInteger value = ownerAllowed.get(spender);
+        return BigInteger.valueOf(allowance(new AllowanceKey(owner, spender)));
+    }
+
+    private long allowance(AllowanceKey key) {
+        Long value = allowed.get(key);
         if (value == null) {
-            value = BigInteger.ZERO;
+            return 0;
         }
         return value;
     }
@@ -91,27 +198,73 @@ public class HenaToken extends LockMgr implements  Token, Contract {
     @Override
     @View
     public BigInteger balanceOf(@Required Address owner) {
+        return BigInteger.valueOf(getBalance(owner));
+    }
+
+    private long getBalance(Address owner) {
         require(owner != null);
-        BigInteger balance = balances.get(owner);
-        if (balance == null) {
-            balance = BigInteger.ZERO;
+        Account account = getAccount(owner);
+        if (account == null) {
+            return 0;
         }
-        return balance;
+        return account.balance;
     }
 
     @Override
     public boolean approve(@Required Address spender, @Required BigInteger value) {
-        setAllowed(Msg.sender(), spender, value);
+        setAllowed(Msg.sender(), spender, toAllowance(value));
         emit(new ApprovalEvent(Msg.sender(), spender, value));
         return true;
     }
 
+    public boolean approveAndCall(@Required Address spender, @Required BigInteger value, String extraData) {
+        approve(spender, value);
+        String[][] args = new String[][]{
+                {Msg.sender().toString()},
+                {value.toString()},
+                {Msg.address().toString()},
+                {extraData == null ? "" : extraData}};
+        spender.call("receiveApproval", null, args, BigInteger.ZERO);
+        return true;
+    }
+
+    public boolean authorizeOperator(@Required Address operator) {
+        require(!operator.equals(Msg.sender()), "Can not authorize yourself");
+        if (operators.add(new AllowanceKey(Msg.sender(), operator))) {
+            emit(new OperatorAuthorizedEvent(Msg.sender(), operator));
+        }
+        return true;
+    }
+
+    public boolean revokeOperator(@Required Address operator) {
+        if (operators.remove(new AllowanceKey(Msg.sender(), operator))) {
+            emit(new OperatorRevokedEvent(Msg.sender(), operator));
+        }
+        return true;
+    }
+
+    @View
+    public boolean isOperatorFor(@Required Address operator, @Required Address holder) {
+        return operators.contains(new AllowanceKey(holder, operator));
+    }
+
+    public boolean operatorTransfer(@Required Address from, @Required Address to, @Required BigInteger value) {
+        require(!getStopTransfer(), "Stoped transfer" );
+        require(operators.contains(new AllowanceKey(from, Msg.sender())), "Not an authorized operator");
+        long amount = toAmount(value);
+        subtractBalance(from, amount);
+        addBalance(to, amount);
+        emit(new TransferEvent(from, to, value));
+        return true;
+    }
+
     @Override
     public boolean transferFrom(@Required Address from, @Required Address to, @Required BigInteger value) {
         require(!getStopTransfer(), "Stoped transfer" );
-        subtractAllowed(from, Msg.sender(), value);
-        subtractBalance(from, value);
-        addBalance(to, value);
+        long amount = toAmount(value);
+        subtractAllowed(from, Msg.sender(), amount);
+        subtractBalance(from, amount);
+        addBalance(to, amount);
         emit(new TransferEvent(from, to, value));
         return true;
     }
@@ -119,16 +272,36 @@ public class HenaToken extends LockMgr implements  Token, Contract {
     @Override
     public boolean transfer(@Required Address to, @Required BigInteger value) {
         require(!getStopTransfer(), "Stoped transfer" );
-        subtractBalance(Msg.sender(), value);
-        addBalance(to, value);
+        long amount = toAmount(value);
+        subtractBalance(Msg.sender(), amount);
+        addBalance(to, amount);
         emit(new TransferEvent(Msg.sender(), to, value));
         return true;
     }
 
+    public boolean transferBatch(@Required Address[] to, @Required BigInteger[] values) {
+        require(!getStopTransfer(), "Stoped transfer" );
+        long[] amounts = toAmounts(to, values);
+        subtractBalance(Msg.sender(), sum(amounts));
+        creditBatch(Msg.sender(), to, amounts, values);
+        return true;
+    }
+
+    public boolean transferFromBatch(@Required Address from, @Required Address[] to, @Required BigInteger[] values) {
+        require(!getStopTransfer(), "Stoped transfer" );
+        long[] amounts = toAmounts(to, values);
+        long total = sum(amounts);
+        subtractAllowed(from, Msg.sender(), total);
+        subtractBalance(from, total);
+        creditBatch(from, to, amounts, values);
+        return true;
+    }
+
     public boolean transferCS(@Required Address to,@Required BigInteger value){
         requireManager(Msg.sender());
-        subtractBalance(Msg.address(), value);
-        addBalance(to, value);
+        long amount = toAmount(value);
+        subtractBalance(Msg.address(), amount);
+        addBalance(to, amount);
         emit(new TransferEvent(Msg.address(), to, value));
         return true;
     }
@@ -136,105 +309,285 @@ public class HenaToken extends LockMgr implements  Token, Contract {
     public boolean transferOwner(@Required Address from, @Required Address to, @Required BigInteger value) {
         require(getAvailableTransferOwner(), "Finished transferOwner");
         requireOwner(Msg.sender());
-        require(!isImportantAddress(from.toString()), from.toString()+" is Important Address");
-        subtractBalance(from, value);
-        addBalance(to, value);
+        if (isImportantAddress(from)) {
+            revert(from.toString() + " is Important Address");
+        }
+        long amount = toAmount(value);
+        subtractBalance(from, amount);
+        addBalance(to, amount);
         emit(new TransferEvent(from, to, value));
         return true;
     }
 
     public boolean transferPOCM(@Required Address to,@Required BigInteger value,@Required long lockTime){
         require(Msg.sender().equals(POCMAddress), "Only POCM Contract address allowed");
-        subtractBalance(Msg.sender(), value);
-        addBalance(to, value);
-        addLock(LOCK_TYPE_POCM_REWARD, to, lockTime, value);
+        long amount = toAmount(value);
+        subtractBalance(Msg.sender(), amount);
+        addBalance(to, amount);
+        addLock(LOCK_TYPE_POCM_REWARD, to, lockTime, amount);
         emit(new TransferEvent(Msg.sender(), to, value));
         return true;
     }
 
+    public boolean transferPOCMBatch(@Required Address[] to, @Required BigInteger[] values, @Required long lockTime){
+        require(Msg.sender().equals(POCMAddress), "Only POCM Contract address allowed");
+        long[] amounts = toAmounts(to, values);
+        subtractBalance(Msg.sender(), sum(amounts));
+        for (int i = 0; i < to.length; i++) {
+            addBalance(to[i], amounts[i]);
+            addLock(LOCK_TYPE_POCM_REWARD, to[i], lockTime, amounts[i]);
+            emit(new TransferEvent(Msg.sender(), to[i], values[i]));
+        }
+        return true;
+    }
+
     public boolean transferLock(@Required Address to,@Required BigInteger value,@Required long lockTime){
         requireManager(Msg.sender());
-        subtractBalance(Msg.sender(), value);
-        addBalance(to, value);
-        addLock( LOCK_TYPE_NORMAL, to, lockTime, value);
+        long amount = toAmount(value);
+        subtractBalance(Msg.sender(), amount);
+        addBalance(to, amount);
+        addLock( LOCK_TYPE_NORMAL, to, lockTime, amount);
         emit(new TransferEvent(Msg.sender(), to, value));
         return true;
     }
 
     public boolean burn(@Required BigInteger burnValue) {
         requireOwner(Msg.sender());
-        subtractBalance(Msg.sender(), burnValue);
-        totalSupply = totalSupply.subtract(burnValue);
+        long amount = toAmount(burnValue);
+        subtractBalance(Msg.sender(), amount);
+        totalSupply -= amount;
+        totalSupplyCheckpointCount = recordCheckpoint(null, totalSupplyCheckpointCount, getTime(), totalSupply);
         emit(new BurnEvent(burnValue));
         return true;
     }
 
-    private void subtractAllowed(Address address1, Address address2, BigInteger value) {
-        BigInteger allowance = allowance(address1, address2);
-        check(allowance, value, "Insufficient approved token");
-        setAllowed(address1, address2, allowance.subtract(value));
+    private void subtractAllowed(Address address1, Address address2, long value) {
+        AllowanceKey key = new AllowanceKey(address1, address2);
+        long allowance = allowance(key);
+        require(allowance >= value, "Insufficient approved token");
+        if (allowance != UNLIMITED_ALLOWANCE && value != 0) {
+            putAllowed(key, allowance - value);
+            // Lets event consumers follow the allowance without reading contract state.
+            emit(new ApprovalEvent(address1, address2, BigInteger.valueOf(allowance - value)));
+        }
+    }
+
+    // Approvals of 2^63 or more, such as the customary 2^256-1, are kept as an unlimited allowance.
+    private long toAllowance(BigInteger value) {
+        require(value != null && value.signum() >= 0, "The value must be greater than or equal to 0.");
+        if (value.bitLength() >= 64) {
+            return UNLIMITED_ALLOWANCE;
+        }
+        return value.longValue();
+    }
+
+    private void setAllowed(Address address1, Address address2, long value) {
+        putAllowed(new AllowanceKey(address1, address2), value);
     }
 
-    private void setAllowed(Address address1, Address address2, BigInteger value) {
-        check(value);
-        Map<Address, BigInteger> address1Allowed = allowed.get(address1);
-        if (address1Allowed == null) {
-            address1Allowed = new HashMap<Address, BigInteger>();
-            allowed.put(address1, address1Allowed);
+    private void putAllowed(AllowanceKey key, long value) {
+        if (value == 0) {
+            allowed.remove(key);
+        } else {
+            allowed.put(key, value);
         }
-        address1Allowed.put(address2, value);
     }
 
-    protected void addBalance(Address address, BigInteger value) {
-        BigInteger balance = balanceOf(address);
-        check(value, "The value must be greater than or equal to 0.");
-        check(balance);
-        balances.put(address, balance.add(value));
+    protected void addBalance(Address address, long value) {
+        require(value >= 0, "The value must be greater than or equal to 0.");
+        if (value == 0) {
+            return;
+        }
+        Account account = getOrCreateAccount(address);
+        if (account.balance == 0) {
+            account.holderSeq = holders.add(address);
+        }
+        account.balance = safeAdd(account.balance, value);
+        recordBalance(address, account, getTime());
     }
 
-    private void subtractBalance(Address address, BigInteger value) {
-        BigInteger totalBalance = balanceOf(address);
-        BigInteger availableBalance = availableBalanceOf(address);
-        check(availableBalance, value, "There is not enough available balance.");
-        balances.put(address, totalBalance.subtract(value));
+    private void subtractBalance(Address address, long value) {
+        Account account = getAccount(address);
+        long currentTime = getTime();
+        long totalBalance = account == null ? 0 : account.balance;
+        long availableBalance = totalBalance - getLockBalance(account, currentTime);
+        require(availableBalance >= value, "There is not enough available balance.");
+        if (value == 0) {
+            return;
+        }
+        account.balance = totalBalance - value;
+        recordBalance(address, account, currentTime);
+        if (account.balance == 0) {
+            holders.remove(account.holderSeq);
+            account.holderSeq = -1;
+        }
     }
 
-    private void check(BigInteger value) {
-        require(value != null && value.compareTo(BigInteger.ZERO) >= 0);
+    private void recordBalance(Address address, Account account, long currentTime) {
+        account.checkpointCount = recordCheckpoint(address, account.checkpointCount, currentTime, account.balance);
     }
 
-    private void check(BigInteger value, String msg) {
-        require(value != null && value.compareTo(BigInteger.ZERO) >= 0, msg);
+    // Appends (time, value) after the count checkpoints of owner, or overwrites the last one if it has the same time.
+    // Returns the new count.
+    private int recordCheckpoint(Address owner, int count, long time, long value) {
+        if (count > 0) {
+            Checkpoint last = checkpoints.get(new CheckpointKey(owner, count - 1));
+            if (last.time == time) {
+                last.value = value;
+                return count;
+            }
+        }
+        checkpoints.put(new CheckpointKey(owner, count), new Checkpoint(time, value));
+        return count + 1;
     }
 
-    private void check(BigInteger value1, BigInteger value2, String msg) {
-        check(value1);
-        check(value2);
-        require(value1.compareTo(value2) >= 0, msg);
+    // Value of the last checkpoint of owner at or before time, found by binary search over the indexes.
+    private long checkpointAt(Address owner, int count, long time) {
+        int low = 0;
+        int high = count - 1;
+        long found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Checkpoint checkpoint = checkpoints.get(new CheckpointKey(owner, mid));
+            if (checkpoint.time <= time) {
+                found = checkpoint.value;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    @View
+    public BigInteger balanceOfAt(@Required Address owner, @Required long time) {
+        require(owner != null);
+        Account account = getAccount(owner);
+        if (account == null) {
+            return BigInteger.ZERO;
+        }
+        return BigInteger.valueOf(checkpointAt(owner, account.checkpointCount, time));
+    }
+
+    @View
+    public BigInteger totalSupplyAt(@Required long time) {
+        return BigInteger.valueOf(checkpointAt(null, totalSupplyCheckpointCount, time));
+    }
+
+    @View
+    public int holderCount() {
+        return holders.size();
+    }
+
+    /**
+     * Holders in up to limit slots of the holder index, starting at cursor, oldest holders first.
+     * Holders keep their slot, so an address holding tokens for the whole walk is returned exactly once
+     * even if others come and go between calls. Slots freed by former holders count against limit.
+     * "next" is the cursor for the following call, or -1 once every slot has been read.
+     */
+    @View
+    public String holdersPage(@Required long cursor, @Required int limit) {
+        require(cursor >= 0 && limit > 0, "Invalid page");
+        long end = holders.pageEnd(cursor, limit);
+        long currentTime = getTime();
+        StringBuilder result = new StringBuilder();
+        result.append("{\"total\":").append(holders.size()).append(",\"cursor\":").append(cursor)
+                .append(",\"next\":").append(holders.nextCursor(end)).append(",\"holders\":[");
+        String separator = "";
+        for (long seq = cursor; seq < end; seq++) {
+            Address holder = holders.get(seq);
+            if (holder == null) {
+                continue;
+            }
+            result.append(separator);
+            appendAccountState(result, holder, getAccount(holder), currentTime);
+            separator = ",";
+        }
+        return result.append("]}").toString();
+    }
+
+    @View
+    public String balancesOf(@Required Address[] addresses) {
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < addresses.length; i++) {
+            if (i > 0) {
+                result.append(",");
+            }
+            result.append("\"").append(getBalance(addresses[i])).append("\"");
+        }
+        return result.append("]").toString();
+    }
+
+    @View
+    public String accountStates(@Required Address[] addresses) {
+        long currentTime = getTime();
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < addresses.length; i++) {
+            if (i > 0) {
+                result.append(",");
+            }
+            appendAccountState(result, addresses[i], getAccount(addresses[i]), currentTime);
+        }
+        return result.append("]").toString();
+    }
+
+    private long[] toAmounts(Address[] to, BigInteger[] values) {
+        require(to.length == values.length, "The number of addresses and values must match.");
+        require(to.length > 0, "Empty batch");
+        long[] amounts = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            require(to[i] != null, "Invalid address");
+            amounts[i] = toAmount(values[i]);
+        }
+        return amounts;
+    }
+
+    private long sum(long[] amounts) {
+        long total = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            total = safeAdd(total, amounts[i]);
+        }
+        return total;
+    }
+
+    private void creditBatch(Address from, Address[] to, long[] amounts, BigInteger[] values) {
+        for (int i = 0; i < to.length; i++) {
+            addBalance(to[i], amounts[i]);
+            emit(new TransferEvent(from, to[i], values[i]));
+        }
     }
 
     @View
     public BigInteger availableBalanceOf(@Required Address address) {
-        BigInteger totalBalance = balanceOf(address);
-        BigInteger lockedBalance = getLockBalance(address, totalBalance);
-        return totalBalance.subtract(lockedBalance);
+        require(address != null);
+        Account account = getAccount(address);
+        if (account == null) {
+            return BigInteger.ZERO;
+        }
+        return BigInteger.valueOf(account.balance - getLockBalance(account, getTime()));
     }
 
     public boolean addLockNormal(@Required Address targetAddress, long[] startTime, long[] endTime, int[] percentage) {
         requireManager(Msg.sender());
-        check(balanceOf(targetAddress));
+        long balance = getBalance(targetAddress);
         require(startTime.length == endTime.length && startTime.length == percentage.length);
         for (int i = 0; i < startTime.length; i++) {
-            addLock(LOCK_TYPE_NORMAL, targetAddress, balanceOf(targetAddress), startTime[i], endTime[i], percentage[i]);
+            addLock(LOCK_TYPE_NORMAL, targetAddress, balance, startTime[i], endTime[i], percentage[i]);
         }
         return true;
     }
 
+    public boolean addLockVesting(@Required Address targetAddress, @Required BigInteger total, @Required long startTime, @Required long cliffTime, @Required long endTime, @Required long step) {
+        requireManager(Msg.sender());
+        return addVestingLock(targetAddress, toAmount(total), startTime, cliffTime, endTime, step);
+    }
+
     public boolean addLockStake(@Required long endTime, @Required BigInteger value) {
-        check(value);
-        BigInteger availableBalance =  availableBalanceOf(Msg.sender());
-        check(availableBalance, value, "Not enough available balance.");
-        addLock(LOCK_TYPE_STAKE, Msg.sender(), value, getTime(), endTime, 100);
+        long amount = toAmount(value);
+        Account account = getAccount(Msg.sender());
+        long availableBalance = account == null ? 0 : account.balance - getLockBalance(account, getTime());
+        require(availableBalance >= amount, "Not enough available balance.");
+        addLock(LOCK_TYPE_STAKE, Msg.sender(), amount, getTime(), endTime, 100);
         return true;
     }
 
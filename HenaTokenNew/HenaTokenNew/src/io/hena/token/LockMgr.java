@@ -10,6 +10,7 @@ import io.nuls.contract.sdk.annotation.View;
 import java.math.BigInteger;
 import java.util.*;
 
+import static io.nuls.contract.sdk.Utils.emit;
 import static io.nuls.contract.sdk.Utils.require;
 
 public class LockMgr extends Ownable {
@@ -17,52 +18,340 @@ public class LockMgr extends Ownable {
     protected final int LOCK_TYPE_NORMAL = 1;
     protected final int LOCK_TYPE_STAKE = 2;
     protected final int LOCK_TYPE_POCM_REWARD =3;
+    protected final int LOCK_TYPE_VESTING = 4;
 
-    private Map<Address, List<TimeLock>> locks = new HashMap<Address, List<TimeLock>>();
-    private Map<Address, LockUserInfo> lockUserInfos = new HashMap<Address, LockUserInfo>();
+    private Map<Address, Account> accounts = new HashMap<Address, Account>();
+    // Addresses per non-empty tag, in the order they were tagged.
+    private Map<String, AddressIndex> tagMembers = new HashMap<String, AddressIndex>();
 
     private boolean availableTransferOwner = true;
     private boolean stopTranser = false;
 
     protected final int MAX_LOCK = 100;
-    private class LockUserInfo {
+
+    // Addresses grouped by the day their locks end, swept by sweepExpiredLocks.
+    protected final long EXPIRY_BUCKET = 86400;
+    private Map<Long, List<Address>> expiryBuckets = new HashMap<Long, List<Address>>();
+    private long sweepCursor = Long.MAX_VALUE;
+    private long lastExpiryBucket = -1;
+
+    // Everything the contract keeps per address, so a call loads each party once.
+    protected class Account {
+        long balance;
+        long holderSeq = -1;
         boolean totalLocked = false;
         String tag = "";
+        long tagSeq = -1;
+        LockSchedule locks;
+        VestingSchedule vesting;
+        // Balance checkpoints stored by HenaToken; they keep the account of any former holder alive.
+        int checkpointCount;
+
+        boolean hasUserInfo() {
+            return totalLocked || tag.length() > 0;
+        }
 
-        @Override
-        public String toString() {
+        boolean isEmpty() {
+            return balance == 0 && !hasUserInfo() && locks == null && vesting == null && checkpointCount == 0;
+        }
+
+        String userInfoString() {
             return "{totalLocked:" + totalLocked + ",tag:" + tag + "}";
         }
     }
 
-    public class TimeLock {
-        int lockType;
-        long startTime;
-        long endTime;
-        BigInteger lockedBalance;
+    // Addresses in insertion order under increasing sequence numbers. An entry never moves, so a
+    // cursor over the sequence stays valid while other addresses join or leave between pages.
+    protected class AddressIndex {
+        long nextSeq;
+        Map<Long, Address> bySeq = new HashMap<Long, Address>();
+
+        long add(Address address) {
+            long seq = nextSeq++;
+            bySeq.put(seq, address);
+            return seq;
+        }
+
+        void remove(long seq) {
+            bySeq.remove(seq);
+        }
+
+        Address get(long seq) {
+            return bySeq.get(seq);
+        }
+
+        int size() {
+            return bySeq.size();
+        }
+
+        // End of a page of at most limit sequence slots starting at cursor; freed slots are counted too.
+        long pageEnd(long cursor, int limit) {
+            return cursor < nextSeq - limit ? cursor + limit : nextSeq;
+        }
+
+        long nextCursor(long end) {
+            return end < nextSeq ? end : -1;
+        }
+    }
+
+    // Vesting entries of one address packed into parallel primitive arrays. Each entry is fully
+    // locked until its cliffTime, then released linearly from startTime to endTime in whole steps.
+    private class VestingSchedule {
+        int size;
+        long[] totals = new long[2];
+        long[] startTimes = new long[2];
+        long[] cliffTimes = new long[2];
+        long[] endTimes = new long[2];
+        long[] steps = new long[2];
+
+        void add(long total, long startTime, long cliffTime, long endTime, long step) {
+            if (size == totals.length) {
+                grow();
+            }
+            totals[size] = total;
+            startTimes[size] = startTime;
+            cliffTimes[size] = cliffTime;
+            endTimes[size] = endTime;
+            steps[size] = step;
+            size++;
+        }
+
+        private void grow() {
+            int capacity = size * 2;
+            long[] newTotals = new long[capacity];
+            long[] newStarts = new long[capacity];
+            long[] newCliffs = new long[capacity];
+            long[] newEnds = new long[capacity];
+            long[] newSteps = new long[capacity];
+            for (int i = 0; i < size; i++) {
+                newTotals[i] = totals[i];
+                newStarts[i] = startTimes[i];
+                newCliffs[i] = cliffTimes[i];
+                newEnds[i] = endTimes[i];
+                newSteps[i] = steps[i];
+            }
+            totals = newTotals;
+            startTimes = newStarts;
+            cliffTimes = newCliffs;
+            endTimes = newEnds;
+            steps = newSteps;
+        }
+
+        int indexOf(long endTime) {
+            for (int i = 0; i < size; i++) {
+                if (endTimes[i] == endTime) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void move(int from, int to) {
+            totals[to] = totals[from];
+            startTimes[to] = startTimes[from];
+            cliffTimes[to] = cliffTimes[from];
+            endTimes[to] = endTimes[from];
+            steps[to] = steps[from];
+        }
 
-        public TimeLock(int lockType, long startTime, long endTime, BigInteger lockedBalance) {
-            this.lockType = lockType;
-            this.startTime = startTime;
-            this.endTime = endTime;
-            this.lockedBalance = lockedBalance;
+        void remove(int index) {
+            for (int i = index + 1; i < size; i++) {
+                move(i, i - 1);
+            }
+            size--;
         }
 
-        public boolean equal( TimeLock lock){
+        int removeExpired(long currentTime) {
+            return removeExpired(currentTime, size);
+        }
 
-            if( this.lockType == lock.lockType && this.endTime == lock.endTime){
-                return true;
+        // Removes at most limit expired entries, keeping the order of everything else.
+        int removeExpired(long currentTime, int limit) {
+            int kept = 0;
+            int removed = 0;
+            for (int i = 0; i < size; i++) {
+                if (endTimes[i] >= currentTime || removed == limit) {
+                    move(i, kept++);
+                } else {
+                    removed++;
+                }
+            }
+            size = kept;
+            return removed;
+        }
+
+        boolean hasExpired(long currentTime) {
+            for (int i = 0; i < size; i++) {
+                if (endTimes[i] < currentTime) {
+                    return true;
+                }
             }
             return false;
         }
 
-        @Override
-        public String toString() {
-            return "{lockType:" + lockType +",startTime:" + startTime + ",endTime:" + endTime + ",lockedBalance:" + lockedBalance.toString() + "}";
+        long lockedAt(int i, long currentTime) {
+            if (currentTime >= endTimes[i]) {
+                return 0;
+            }
+            if (currentTime < cliffTimes[i]) {
+                return totals[i];
+            }
+            long duration = endTimes[i] - startTimes[i];
+            long vestedTime = (currentTime - startTimes[i]) / steps[i] * steps[i];
+            // Same as total * vestedTime / duration; vestedTime < duration keeps both parts within long.
+            long released = totals[i] / duration * vestedTime + mulDiv(totals[i] % duration, vestedTime, duration);
+            return totals[i] - released;
+        }
+
+        long lockedAt(long currentTime) {
+            long locked = 0;
+            for (int i = 0; i < size; i++) {
+                locked = saturatedAdd(locked, lockedAt(i, currentTime));
+            }
+            return locked;
+        }
+
+        String toString(int i) {
+            return "{lockType:" + LOCK_TYPE_VESTING + ",startTime:" + startTimes[i] + ",cliffTime:" + cliffTimes[i] + ",endTime:" + endTimes[i] + ",step:" + steps[i] + ",total:" + totals[i] + "}";
         }
     }
 
-    protected Set<String> importantAddress = new HashSet<String>();
+    // Locks of one address packed into parallel primitive arrays, together with the
+    // cached locked total which stays valid while validFrom <= time < validUntil.
+    private class LockSchedule {
+        int size;
+        int[] lockTypes = new int[4];
+        long[] startTimes = new long[4];
+        long[] endTimes = new long[4];
+        long[] amounts = new long[4];
+
+        long lockedBalance;
+        long validFrom;
+        long validUntil = -1;
+
+        void add(int lockType, long startTime, long endTime, long amount) {
+            if (size == lockTypes.length) {
+                grow();
+            }
+            lockTypes[size] = lockType;
+            startTimes[size] = startTime;
+            endTimes[size] = endTime;
+            amounts[size] = amount;
+            size++;
+        }
+
+        private void grow() {
+            int capacity = size * 2;
+            int[] newTypes = new int[capacity];
+            long[] newStarts = new long[capacity];
+            long[] newEnds = new long[capacity];
+            long[] newAmounts = new long[capacity];
+            for (int i = 0; i < size; i++) {
+                newTypes[i] = lockTypes[i];
+                newStarts[i] = startTimes[i];
+                newEnds[i] = endTimes[i];
+                newAmounts[i] = amounts[i];
+            }
+            lockTypes = newTypes;
+            startTimes = newStarts;
+            endTimes = newEnds;
+            amounts = newAmounts;
+        }
+
+        boolean matches(int i, int lockType, long endTime) {
+            return lockTypes[i] == lockType && endTimes[i] == endTime;
+        }
+
+        int indexOf(int lockType, long endTime) {
+            for (int i = 0; i < size; i++) {
+                if (matches(i, lockType, endTime)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void move(int from, int to) {
+            lockTypes[to] = lockTypes[from];
+            startTimes[to] = startTimes[from];
+            endTimes[to] = endTimes[from];
+            amounts[to] = amounts[from];
+        }
+
+        int removeMatching(int lockType, long endTime) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!matches(i, lockType, endTime)) {
+                    move(i, kept++);
+                }
+            }
+            int removed = size - kept;
+            size = kept;
+            return removed;
+        }
+
+        int removeExpired(long currentTime) {
+            return removeExpired(currentTime, size);
+        }
+
+        // Removes at most limit expired entries, keeping the order of everything else.
+        int removeExpired(long currentTime, int limit) {
+            int kept = 0;
+            int removed = 0;
+            for (int i = 0; i < size; i++) {
+                if (endTimes[i] >= currentTime || removed == limit) {
+                    move(i, kept++);
+                } else {
+                    removed++;
+                }
+            }
+            size = kept;
+            return removed;
+        }
+
+        boolean hasExpired(long currentTime) {
+            for (int i = 0; i < size; i++) {
+                if (endTimes[i] < currentTime) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean isValid(long currentTime) {
+            return currentTime >= validFrom && currentTime < validUntil;
+        }
+
+        void invalidate() {
+            validUntil = -1;
+        }
+
+        void rebuild(long currentTime) {
+            lockedBalance = 0;
+            validFrom = currentTime;
+            validUntil = Long.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                include(i, currentTime);
+            }
+        }
+
+        void include(int i, long currentTime) {
+            if (currentTime < startTimes[i]) {
+                validUntil = Math.min(validUntil, startTimes[i]);
+            } else if (currentTime <= endTimes[i]) {
+                lockedBalance = saturatedAdd(lockedBalance, amounts[i]);
+                if (endTimes[i] < Long.MAX_VALUE) {
+                    validUntil = Math.min(validUntil, endTimes[i] + 1);
+                }
+            }
+        }
+
+        String toString(int i) {
+            return "{lockType:" + lockTypes[i] + ",startTime:" + startTimes[i] + ",endTime:" + endTimes[i] + ",lockedBalance:" + amounts[i] + "}";
+        }
+    }
+
+    protected Set<Address> importantAddress = new HashSet<Address>();
 
     LockMgr(Address owner, Address manager) {
        super(owner, manager);
@@ -70,21 +359,40 @@ public class LockMgr extends Ownable {
 
     public boolean setImportantAddress(String address){
         require(Msg.sender().equals(manager));
-        if( importantAddress.contains(address) ){
-            importantAddress.remove(address);
+        Address target = new Address(address);
+        if( importantAddress.contains(target) ){
+            importantAddress.remove(target);
             return false;
         }else{
-            importantAddress.add(address);
+            importantAddress.add(target);
             return true;
         }
     }
 
+    public int addImportantAddresses(@Required Address[] addresses){
+        require(Msg.sender().equals(manager));
+        int result = 0;
+        for (int i = 0; i < addresses.length; i++) {
+            if (importantAddress.add(addresses[i])) {
+                result++;
+            }
+        }
+        return result;
+    }
 
-    protected boolean isImportantAddress(String add){
-        if( importantAddress.contains(add)){
-            return true;
+    public int removeImportantAddresses(@Required Address[] addresses){
+        require(Msg.sender().equals(manager));
+        int result = 0;
+        for (int i = 0; i < addresses.length; i++) {
+            if (importantAddress.remove(addresses[i])) {
+                result++;
+            }
         }
-        return false;
+        return result;
+    }
+
+    protected boolean isImportantAddress(Address add){
+        return importantAddress.contains(add);
     }
 
     public boolean finishTransferOwner() {
@@ -115,92 +423,365 @@ public class LockMgr extends Ownable {
         return stopTranser;
     }
 
+    protected Account getAccount(Address address) {
+        return accounts.get(address);
+    }
+
+    protected Account getOrCreateAccount(Address address) {
+        Account account = accounts.get(address);
+        if (account == null) {
+            account = new Account();
+            accounts.put(address, account);
+        }
+        return account;
+    }
+
+    protected void releaseIfEmpty(Address address, Account account) {
+        if (account.isEmpty()) {
+            accounts.remove(address);
+        }
+    }
+
     public boolean setTag(@Required Address address, @Required String tag) {
         requireManager(Msg.sender());
-        LockUserInfo userInfo = lockUserInfos.get(address);
-        if (userInfo == null) {
-            userInfo = new LockUserInfo();
-            lockUserInfos.put(address, userInfo);
+        changeTag(address, tag);
+        return true;
+    }
+
+    public boolean setTagBatch(@Required Address[] addresses, @Required String tag) {
+        requireManager(Msg.sender());
+        for (int i = 0; i < addresses.length; i++) {
+            changeTag(addresses[i], tag);
         }
-        userInfo.tag = tag;
         return true;
     }
 
+    private void changeTag(Address address, String tag) {
+        Account account = accounts.get(address);
+        String current = account == null ? "" : account.tag;
+        if (current.equals(tag)) {
+            return;
+        }
+        if (account == null) {
+            account = getOrCreateAccount(address);
+        }
+        if (account.tagSeq >= 0) {
+            AddressIndex members = tagMembers.get(account.tag);
+            members.remove(account.tagSeq);
+            if (members.size() == 0) {
+                tagMembers.remove(account.tag);
+            }
+            account.tagSeq = -1;
+        }
+        account.tag = tag;
+        if (tag.length() > 0) {
+            AddressIndex members = tagMembers.get(tag);
+            if (members == null) {
+                members = new AddressIndex();
+                tagMembers.put(tag, members);
+            }
+            account.tagSeq = members.add(address);
+        }
+        releaseIfEmpty(address, account);
+    }
+
     @View
     public String getTag(@Required Address address) {
-        LockUserInfo userInfo = lockUserInfos.get(address);
-        if (userInfo == null) {
+        Account account = accounts.get(address);
+        if (account == null) {
             return "";
         }
-        return userInfo.tag;
+        return account.tag;
+    }
+
+    @View
+    public int getTagMemberCount(@Required String tag) {
+        AddressIndex members = tagMembers.get(tag);
+        return members == null ? 0 : members.size();
     }
 
     public boolean lock(@Required Address targetAddress) {
         requireManager(Msg.sender());
-        LockUserInfo userInfo = lockUserInfos.get(targetAddress);
-        if (userInfo == null) {
-            userInfo = new LockUserInfo();
-            lockUserInfos.put(targetAddress, userInfo);
+        Account account = getOrCreateAccount(targetAddress);
+        if (!account.totalLocked) {
+            account.totalLocked = true;
+            emit(new Token.AccountFrozenEvent(targetAddress, true));
         }
-        userInfo.totalLocked = true;
         return true;
     }
 
     public boolean unlock(@Required Address targetAddress) {
         requireManager(Msg.sender());
-        LockUserInfo userInfo = lockUserInfos.get(targetAddress);
-        if (userInfo == null) {
+        Account account = accounts.get(targetAddress);
+        if (account == null) {
             return false;
         }
-        userInfo.totalLocked = false;
+        if (account.totalLocked) {
+            account.totalLocked = false;
+            releaseIfEmpty(targetAddress, account);
+            emit(new Token.AccountFrozenEvent(targetAddress, false));
+        }
         return true;
     }
 
-    protected boolean addLock(int lockType, Address targetAddress, BigInteger balance, long startTime, long endTime, int percentage) {
-        require(percentage > 0 && percentage <= 100 , "persentage is not in range");
-        require(getTime() < endTime , "EndTime should be the future.");
+    /**
+     * Freezes the addresses tagged with tag in up to limit slots of the tag index, starting at cursor.
+     * Members keep their slot, so an address tagged for the whole walk is handled exactly once
+     * even if others are retagged between calls. Slots freed by retagged addresses count against limit.
+     * Returns the cursor for the next call, or -1 once every slot has been handled.
+     */
+    public long lockByTag(@Required String tag, @Required long cursor, @Required int limit) {
+        requireManager(Msg.sender());
+        return setTotalLockedByTag(tag, cursor, limit, true);
+    }
+
+    public long unlockByTag(@Required String tag, @Required long cursor, @Required int limit) {
+        requireManager(Msg.sender());
+        return setTotalLockedByTag(tag, cursor, limit, false);
+    }
 
-        List<TimeLock> lockList = locks.get(targetAddress);
-        if (lockList == null) {
-            lockList = new ArrayList<TimeLock>();
-            locks.put(targetAddress, lockList);
+    private long setTotalLockedByTag(String tag, long cursor, int limit, boolean totalLocked) {
+        require(cursor >= 0 && limit > 0, "Invalid page");
+        AddressIndex members = tagMembers.get(tag);
+        if (members == null) {
+            return -1;
         }
-        require(lockList.size()<= MAX_LOCK, "The number of locks can not exceed 100.");
+        long end = members.pageEnd(cursor, limit);
+        for (long seq = cursor; seq < end; seq++) {
+            Address address = members.get(seq);
+            if (address == null) {
+                continue;
+            }
+            Account account = accounts.get(address);
+            if (account.totalLocked != totalLocked) {
+                account.totalLocked = totalLocked;
+                emit(new Token.AccountFrozenEvent(address, totalLocked));
+            }
+        }
+        return members.nextCursor(end);
+    }
+
+    protected boolean addLock(int lockType, Address targetAddress, long balance, long startTime, long endTime, int percentage) {
+        require(percentage > 0 && percentage <= 100 , "persentage is not in range");
+        require(getTime() < endTime , "EndTime should be the future.");
 
-        BigInteger lockBalance = balance.multiply(BigInteger.valueOf(percentage)).divide(BigInteger.valueOf(100));
-        lockList.add(new TimeLock(lockType, startTime, endTime, lockBalance));
+        require(balance >= 0, "The value must be greater than or equal to 0.");
+        // Same as balance * percentage / 100 without overflowing for balances close to the total supply.
+        long lockBalance = balance / 100 * percentage + balance % 100 * percentage / 100;
+        insertLock(targetAddress, lockType, startTime, endTime, lockBalance);
 
         return true;
     }
 
-    protected boolean addLock(int lockType,  Address targetAddress, long endTime, BigInteger lockBalance) {
+    protected boolean addLock(int lockType,  Address targetAddress, long endTime, long lockBalance) {
 
         require(getTime() < endTime, getTime()+" EndTime should be the future.");
-        List<TimeLock> lockList = locks.get(targetAddress);
-        if (lockList == null) {
-            lockList = new ArrayList<TimeLock>();
-            locks.put(targetAddress, lockList);
+        require(lockBalance >= 0, "The value must be greater than or equal to 0.");
+        insertLock(targetAddress, lockType, 0, endTime, lockBalance);
+        return true;
+    }
+
+    private void insertLock(Address targetAddress, int lockType, long startTime, long endTime, long amount) {
+        long currentTime = getTime();
+        Account account = getOrCreateAccount(targetAddress);
+        LockSchedule schedule = pruneExpiredLocks(account, currentTime);
+        if (schedule == null) {
+            schedule = new LockSchedule();
+            account.locks = schedule;
         }
-        require(lockList.size() <= MAX_LOCK, "The number of locks can not exceed 100.");
-        lockList.add(new TimeLock(lockType, 0, endTime, lockBalance));
+        int index = schedule.indexOf(lockType, endTime);
+        // Same type and end means the same lock; the start only matters while it lies in the future.
+        if (index >= 0 && (schedule.startTimes[index] == startTime || (schedule.startTimes[index] <= currentTime && startTime <= currentTime))) {
+            long merged = safeAdd(schedule.amounts[index], amount);
+            schedule.amounts[index] = merged;
+            if (schedule.isValid(currentTime) && currentTime >= startTime) {
+                schedule.validFrom = currentTime;
+                schedule.lockedBalance = saturatedAdd(schedule.lockedBalance, amount);
+            }
+            emit(new Token.LockUpdatedEvent(targetAddress, lockType, schedule.startTimes[index], endTime, BigInteger.valueOf(merged)));
+            return;
+        }
+        require(schedule.size <= MAX_LOCK, "The number of locks can not exceed 100.");
+        schedule.add(lockType, startTime, endTime, amount);
+        indexExpiry(targetAddress, endTime);
+        emit(new Token.LockAddedEvent(targetAddress, lockType, startTime, endTime, BigInteger.valueOf(amount)));
+        if (schedule.isValid(currentTime)) {
+            if (currentTime >= startTime) {
+                // The cached total only holds from now on once an already active lock is folded in.
+                schedule.validFrom = currentTime;
+            }
+            schedule.include(schedule.size - 1, currentTime);
+        }
+    }
+
+    protected boolean addVestingLock(Address targetAddress, long total, long startTime, long cliffTime, long endTime, long step) {
+        long currentTime = getTime();
+        require(currentTime < endTime, "EndTime should be the future.");
+        require(startTime >= 0 && startTime <= cliffTime && cliffTime <= endTime && startTime < endTime, "Invalid vesting period");
+        require(step > 0, "Invalid vesting step");
+        require(total >= 0, "The value must be greater than or equal to 0.");
+        Account account = getOrCreateAccount(targetAddress);
+        VestingSchedule vesting = pruneExpiredVesting(account, currentTime);
+        if (vesting == null) {
+            vesting = new VestingSchedule();
+            account.vesting = vesting;
+        }
+        // endTime identifies a vesting entry for setLock and removeLock, so it has to be unique per address.
+        int index = vesting.indexOf(endTime);
+        if (index >= 0) {
+            require(vesting.startTimes[index] == startTime && vesting.cliffTimes[index] == cliffTime && vesting.steps[index] == step,
+                    "A different vesting lock ends at the same time");
+            long merged = safeAdd(vesting.totals[index], total);
+            vesting.totals[index] = merged;
+            emit(new Token.LockUpdatedEvent(targetAddress, LOCK_TYPE_VESTING, startTime, cliffTime, endTime, step, BigInteger.valueOf(merged)));
+            return true;
+        }
+        require(vesting.size <= MAX_LOCK, "The number of locks can not exceed 100.");
+        vesting.add(total, startTime, cliffTime, endTime, step);
+        indexExpiry(targetAddress, endTime);
+        emit(new Token.LockAddedEvent(targetAddress, LOCK_TYPE_VESTING, startTime, cliffTime, endTime, step, BigInteger.valueOf(total)));
         return true;
     }
 
-    public int removeLock(@Required int lockType, @Required Address targetAddress, @Required long endTime){
+    // Drops vesting entries whose endTime has passed, and the whole schedule once nothing is left.
+    private VestingSchedule pruneExpiredVesting(Account account, long currentTime) {
+        VestingSchedule vesting = account.vesting;
+        if (vesting == null) {
+            return null;
+        }
+        vesting.removeExpired(currentTime);
+        if (vesting.size == 0) {
+            account.vesting = null;
+            return null;
+        }
+        return vesting;
+    }
+
+    private void indexExpiry(Address targetAddress, long endTime) {
+        long bucket = endTime / EXPIRY_BUCKET;
+        List<Address> addresses = expiryBuckets.get(bucket);
+        if (addresses == null) {
+            addresses = new ArrayList<Address>();
+            expiryBuckets.put(bucket, addresses);
+        }
+        if (addresses.isEmpty() || !addresses.get(addresses.size() - 1).equals(targetAddress)) {
+            addresses.add(targetAddress);
+        }
+        if (bucket < sweepCursor) {
+            sweepCursor = bucket;
+        }
+        if (bucket > lastExpiryBucket) {
+            lastExpiryBucket = bucket;
+        }
+    }
+
+    /**
+     * Removes expired locks of addresses whose lock end fell into an already finished day, oldest first.
+     * At most maxEntries locks are removed; a visited address or day without removals still counts as one.
+     * An address whose expired locks do not fit is put back and finished by the next call.
+     * Returns the day bucket to resume from, or -1 when nothing is left to sweep.
+     */
+    public long sweepExpiredLocks(@Required int maxEntries) {
         requireManager(Msg.sender());
-        List<TimeLock> lockList = locks.get(targetAddress);
+        require(maxEntries > 0, "maxEntries must be positive");
+        long currentTime = getTime();
+        int budget = maxEntries;
+        while (budget > 0 && sweepCursor <= lastExpiryBucket && (sweepCursor + 1) * EXPIRY_BUCKET <= currentTime) {
+            List<Address> addresses = expiryBuckets.get(sweepCursor);
+            if (addresses != null) {
+                while (budget > 0 && !addresses.isEmpty()) {
+                    budget -= Math.max(1, sweepAddress(addresses, currentTime, budget));
+                }
+                if (!addresses.isEmpty()) {
+                    break;
+                }
+                expiryBuckets.remove(sweepCursor);
+            } else {
+                budget--;
+            }
+            sweepCursor++;
+        }
+        if (sweepCursor > lastExpiryBucket) {
+            sweepCursor = Long.MAX_VALUE;
+            return -1;
+        }
+        return sweepCursor;
+    }
+
+    // Sweeps the last address of the bucket, removing at most limit locks, and puts it back if some are left.
+    private int sweepAddress(List<Address> addresses, long currentTime, int limit) {
+        Address targetAddress = addresses.remove(addresses.size() - 1);
+        Account account = accounts.get(targetAddress);
+        if (account == null) {
+            return 0;
+        }
+        int removed = 0;
+        if (account.locks != null) {
+            removed += account.locks.removeExpired(currentTime, limit);
+            if (account.locks.size == 0) {
+                account.locks = null;
+            }
+        }
+        if (account.vesting != null) {
+            removed += account.vesting.removeExpired(currentTime, limit - removed);
+            if (account.vesting.size == 0) {
+                account.vesting = null;
+            }
+        }
+        if (removed == limit && ((account.locks != null && account.locks.hasExpired(currentTime))
+                || (account.vesting != null && account.vesting.hasExpired(currentTime)))) {
+            addresses.add(targetAddress);
+        }
+        releaseIfEmpty(targetAddress, account);
+        return removed;
+    }
 
-        require(lockList != null , "There is no LockData");
+    // Drops locks whose endTime has passed, and the whole schedule once nothing is left.
+    private LockSchedule pruneExpiredLocks(Account account, long currentTime) {
+        LockSchedule schedule = account.locks;
+        if (schedule == null) {
+            return null;
+        }
+        schedule.removeExpired(currentTime);
+        if (schedule.size == 0) {
+            account.locks = null;
+            return null;
+        }
+        return schedule;
+    }
 
-        TimeLock lock = new TimeLock(lockType,0, endTime, BigInteger.ZERO);
-        int result = 0;
-        for(Iterator<TimeLock> it = lockList.iterator(); it.hasNext() ; )
-        {
-            TimeLock value = it.next();
-            if(value.equal(lock))
-            {
-                it.remove();
-                result++;
+    public int removeLock(@Required int lockType, @Required Address targetAddress, @Required long endTime){
+        requireManager(Msg.sender());
+        Account account = accounts.get(targetAddress);
+        if (lockType == LOCK_TYPE_VESTING) {
+            require(account != null && account.vesting != null , "There is no LockData");
+            VestingSchedule vesting = account.vesting;
+            int i = vesting.indexOf(endTime);
+            if (i < 0) {
+                return 0;
+            }
+            emit(new Token.LockRemovedEvent(targetAddress, lockType, vesting.startTimes[i], vesting.cliffTimes[i], endTime, vesting.steps[i], BigInteger.valueOf(vesting.totals[i])));
+            vesting.remove(i);
+            if (vesting.size == 0) {
+                account.vesting = null;
+                releaseIfEmpty(targetAddress, account);
+            }
+            return 1;
+        }
+        require(account != null && account.locks != null , "There is no LockData");
+        LockSchedule schedule = account.locks;
+
+        for (int i = 0; i < schedule.size; i++) {
+            if (schedule.matches(i, lockType, endTime)) {
+                emit(new Token.LockRemovedEvent(targetAddress, lockType, schedule.startTimes[i], endTime, BigInteger.valueOf(schedule.amounts[i])));
+            }
+        }
+        int result = schedule.removeMatching(lockType, endTime);
+        if (result > 0) {
+            schedule.invalidate();
+            if (schedule.size == 0) {
+                account.locks = null;
+                releaseIfEmpty(targetAddress, account);
             }
         }
         return result;
@@ -208,69 +789,223 @@ public class LockMgr extends Ownable {
 
     public void setLock(@Required int lockType, @Required Address targetAddress, @Required long endTime, @Required BigInteger amount){
         requireManager(Msg.sender());
-        List<TimeLock> lockList = locks.get(targetAddress);
-        require(lockList != null , "There is no LockData");
-        TimeLock lock = new TimeLock(lockType,0, endTime, BigInteger.ZERO);
-        int result = 0;
-        for(int i =0; i< lockList.size(); i++)
-        {
-            if(lockList.get(i).equal(lock))
-            {
-                lockList.get(i).lockedBalance = amount;
-                break;
+        Account account = accounts.get(targetAddress);
+        if (lockType == LOCK_TYPE_VESTING) {
+            require(account != null && account.vesting != null , "There is no LockData");
+            VestingSchedule vesting = account.vesting;
+            long total = toAmount(amount);
+            int i = vesting.indexOf(endTime);
+            if (i >= 0) {
+                vesting.totals[i] = total;
+                emit(new Token.LockUpdatedEvent(targetAddress, lockType, vesting.startTimes[i], vesting.cliffTimes[i], endTime, vesting.steps[i], amount));
             }
+            return;
+        }
+        require(account != null && account.locks != null , "There is no LockData");
+        LockSchedule schedule = account.locks;
+        long lockAmount = toAmount(amount);
+        int i = schedule.indexOf(lockType, endTime);
+        if (i >= 0) {
+            schedule.amounts[i] = lockAmount;
+            schedule.invalidate();
+            emit(new Token.LockUpdatedEvent(targetAddress, lockType, schedule.startTimes[i], endTime, amount));
         }
     }
 
 
     @View
     public String getLockState(@Required Address address){
-        String result="{";
-        LockUserInfo userInfo = lockUserInfos.get(address);
-        if( userInfo != null){
+        StringBuilder result = new StringBuilder("{");
+        Account account = accounts.get(address);
+        if (account == null) {
+            return result.append("}").toString();
+        }
+        long currentTime = getTime();
+        String separator = "";
+        if( account.hasUserInfo()){
 
-            result += "userInfo:"+userInfo.toString()+",";
+            result.append("userInfo:").append(account.userInfoString());
+            separator = ",";
         }
 
-        List<TimeLock> lockList = locks.get(address);
-        if (lockList != null) {
-            result += "locks:[";
-            for(TimeLock lock : lockList){
-                result += lock.toString() +",";
+        LockSchedule schedule = pruneExpiredLocks(account, currentTime);
+        if (schedule != null) {
+            result.append(separator).append("locks:[");
+            for(int i = 0; i < schedule.size; i++){
+                if (i > 0) {
+                    result.append(",");
+                }
+                result.append(schedule.toString(i));
             }
-            result += "]";
+            result.append("]");
+            separator = ",";
         }
-        return result+="}";
+        VestingSchedule vesting = pruneExpiredVesting(account, currentTime);
+        if (vesting != null) {
+            result.append(separator).append("vesting:[");
+            for (int i = 0; i < vesting.size; i++) {
+                if (i > 0) {
+                    result.append(",");
+                }
+                result.append(vesting.toString(i));
+            }
+            result.append("]");
+        }
+        return result.append("}").toString();
     }
 
+    @View
+    public String getLockStatePage(@Required Address address, @Required int offset, @Required int limit){
+        require(offset >= 0 && limit > 0, "Invalid page");
+        Account account = accounts.get(address);
+        long currentTime = getTime();
+        LockSchedule schedule = account == null ? null : pruneExpiredLocks(account, currentTime);
+        int total = schedule == null ? 0 : schedule.size;
+
+        StringBuilder result = new StringBuilder();
+        result.append("{\"total\":").append(total).append(",\"offset\":").append(offset);
+        if (account != null && account.hasUserInfo()) {
+            result.append(",\"userInfo\":{\"totalLocked\":").append(account.totalLocked)
+                    .append(",\"tag\":");
+            appendJsonString(result, account.tag);
+            result.append("}");
+        }
+        result.append(",\"locks\":[");
+        int end = offset < total - limit ? offset + limit : total;
+        for (int i = offset; i < end; i++) {
+            if (i > offset) {
+                result.append(",");
+            }
+            result.append("{\"lockType\":").append(schedule.lockTypes[i])
+                    .append(",\"startTime\":").append(schedule.startTimes[i])
+                    .append(",\"endTime\":").append(schedule.endTimes[i])
+                    .append(",\"lockedBalance\":\"").append(schedule.amounts[i]).append("\"}");
+        }
+        result.append("]");
+        VestingSchedule vesting = account == null ? null : pruneExpiredVesting(account, currentTime);
+        if (vesting != null) {
+            result.append(",\"vesting\":[");
+            for (int i = 0; i < vesting.size; i++) {
+                if (i > 0) {
+                    result.append(",");
+                }
+                result.append("{\"total\":\"").append(vesting.totals[i])
+                        .append("\",\"startTime\":").append(vesting.startTimes[i])
+                        .append(",\"cliffTime\":").append(vesting.cliffTimes[i])
+                        .append(",\"endTime\":").append(vesting.endTimes[i])
+                        .append(",\"step\":").append(vesting.steps[i])
+                        .append(",\"lockedBalance\":\"").append(vesting.lockedAt(i, currentTime)).append("\"}");
+            }
+            result.append("]");
+        }
+        return result.append("}").toString();
+    }
 
-
-    protected BigInteger getLockBalance(Address targetAddress, BigInteger balance) {
-        LockUserInfo userInfo = lockUserInfos.get(targetAddress);
-        if (userInfo != null) {
-            if (userInfo.totalLocked == true) {
-                return balance;
+    private void appendJsonString(StringBuilder result, String value) {
+        result.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                result.append('\\');
             }
+            result.append(c);
+        }
+        result.append('"');
+    }
+
+    protected void appendAccountState(StringBuilder result, Address address, Account account, long currentTime) {
+        long balance = account == null ? 0 : account.balance;
+        long lockedBalance = getLockBalance(account, currentTime);
+        result.append("{\"address\":\"").append(address.toString())
+                .append("\",\"balance\":\"").append(balance)
+                .append("\",\"availableBalance\":\"").append(balance - lockedBalance)
+                .append("\",\"lockedBalance\":\"").append(lockedBalance)
+                .append("\",\"totalLocked\":").append(account != null && account.totalLocked)
+                .append(",\"tag\":");
+        appendJsonString(result, account == null ? "" : account.tag);
+        result.append("}");
+    }
+
+    // Locked part of the account's balance at currentTime, never more than the balance itself.
+    protected long getLockBalance(Account account, long currentTime) {
+        if (account == null) {
+            return 0;
         }
-        BigInteger lockedBalance = BigInteger.ZERO;
-        List<TimeLock> lockList = locks.get(targetAddress);
-        if (lockList == null) {
-            return BigInteger.ZERO;
+        long balance = account.balance;
+        if (account.totalLocked == true) {
+            return balance;
         }
-        long currentTime = getTime();
-        for (TimeLock lock : lockList) {
-            if (currentTime >= lock.startTime && currentTime <= lock.endTime) {
-                lockedBalance = lockedBalance.add(lock.lockedBalance);
+        long locked = 0;
+        LockSchedule schedule = account.locks;
+        if (schedule != null && !schedule.isValid(currentTime)) {
+            schedule = pruneExpiredLocks(account, currentTime);
+            if (schedule != null) {
+                schedule.rebuild(currentTime);
             }
         }
+        if (schedule != null) {
+            locked = schedule.lockedBalance;
+        }
+        VestingSchedule vesting = pruneExpiredVesting(account, currentTime);
+        if (vesting != null) {
+            locked = saturatedAdd(locked, vesting.lockedAt(currentTime));
+        }
 
-        if( lockedBalance.compareTo(balance) > 0){
+        if( locked > balance){
             return balance;
         }
 
-        return lockedBalance;
+        return locked;
     }
 
+    // Amounts are kept as long internally, BigInteger is only used for arguments, return values and events.
+    protected long toAmount(BigInteger value) {
+        require(value != null && value.signum() >= 0, "The value must be greater than or equal to 0.");
+        require(value.bitLength() < 64, "The value is out of range.");
+        return value.longValue();
+    }
+
+    protected long safeAdd(long a, long b) {
+        long sum = a + b;
+        require(sum >= a, "The value is out of range.");
+        return sum;
+    }
+
+    // The locked total is capped by the balance anyway, so it is enough to clamp instead of overflowing.
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        if (sum < 0) {
+            return Long.MAX_VALUE;
+        }
+        return sum;
+    }
+
+    // a * b / d rounded down, for 0 <= a, b < d, without overflowing the intermediate product.
+    private static long mulDiv(long a, long b, long d) {
+        if (b == 0 || a <= Long.MAX_VALUE / b) {
+            return a * b / d;
+        }
+        long quotient = 0;
+        long remainder = 0;
+        for (int bit = 62; bit >= 0; bit--) {
+            quotient <<= 1;
+            if (remainder >= d - remainder) {
+                remainder -= d - remainder;
+                quotient++;
+            } else {
+                remainder <<= 1;
+            }
+            if ((b >>> bit & 1) != 0) {
+                if (remainder >= d - a) {
+                    remainder -= d - a;
+                    quotient++;
+                } else {
+                    remainder += a;
+                }
+            }
+        }
+        return quotient;
+    }
 
     protected long getTime() {
         return Block.timestamp()/1000;
@@ -278,5 +1013,3 @@ public class LockMgr extends Ownable {
 
 
 }
-
-
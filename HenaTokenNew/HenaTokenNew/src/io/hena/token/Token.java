@@ -209,4 +209,555 @@ public interface Token {
         }
 
     }
+
+    class OperatorAuthorizedEvent implements Event {
+
+        private Address holder;
+
+        private Address operator;
+
+        public OperatorAuthorizedEvent(@Required Address holder, @Required Address operator) {
+            this.holder = holder;
+            this.operator = operator;
+        }
+
+        public Address getHolder() {
+            return holder;
+        }
+
+        public void setHolder(Address holder) {
+            this.holder = holder;
+        }
+
+        public Address getOperator() {
+            return operator;
+        }
+
+        public void setOperator(Address operator) {
+            this.operator = operator;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            OperatorAuthorizedEvent that = (OperatorAuthorizedEvent) o;
+
+            if (holder != null ? !holder.equals(that.holder) : that.holder != null) return false;
+            return operator != null ? operator.equals(that.operator) : that.operator == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = holder != null ? holder.hashCode() : 0;
+            result = 31 * result + (operator != null ? operator.hashCode() : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "OperatorAuthorizedEvent{" +
+                    "holder=" + holder +
+                    ", operator=" + operator +
+                    '}';
+        }
+
+    }
+
+    class OperatorRevokedEvent implements Event {
+
+        private Address holder;
+
+        private Address operator;
+
+        public OperatorRevokedEvent(@Required Address holder, @Required Address operator) {
+            this.holder = holder;
+            this.operator = operator;
+        }
+
+        public Address getHolder() {
+            return holder;
+        }
+
+        public void setHolder(Address holder) {
+            this.holder = holder;
+        }
+
+        public Address getOperator() {
+            return operator;
+        }
+
+        public void setOperator(Address operator) {
+            this.operator = operator;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            OperatorRevokedEvent that = (OperatorRevokedEvent) o;
+
+            if (holder != null ? !holder.equals(that.holder) : that.holder != null) return false;
+            return operator != null ? operator.equals(that.operator) : that.operator == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = holder != null ? holder.hashCode() : 0;
+            result = 31 * result + (operator != null ? operator.hashCode() : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "OperatorRevokedEvent{" +
+                    "holder=" + holder +
+                    ", operator=" + operator +
+                    '}';
+        }
+
+    }
+
+    class LockAddedEvent implements Event {
+
+        private Address address;
+
+        private int lockType;
+
+        private long startTime;
+
+        private long cliffTime;
+
+        private long endTime;
+
+        private long step;
+
+        private BigInteger amount;
+
+        public LockAddedEvent(@Required Address address, int lockType, long startTime, long endTime, @Required BigInteger amount) {
+            this(address, lockType, startTime, 0, endTime, 0, amount);
+        }
+
+        // cliffTime and step describe vesting locks and are 0 for every other lock type.
+        public LockAddedEvent(@Required Address address, int lockType, long startTime, long cliffTime, long endTime, long step, @Required BigInteger amount) {
+            this.address = address;
+            this.lockType = lockType;
+            this.startTime = startTime;
+            this.cliffTime = cliffTime;
+            this.endTime = endTime;
+            this.step = step;
+            this.amount = amount;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public void setAddress(Address address) {
+            this.address = address;
+        }
+
+        public int getLockType() {
+            return lockType;
+        }
+
+        public void setLockType(int lockType) {
+            this.lockType = lockType;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public void setStartTime(long startTime) {
+            this.startTime = startTime;
+        }
+
+        public long getCliffTime() {
+            return cliffTime;
+        }
+
+        public void setCliffTime(long cliffTime) {
+            this.cliffTime = cliffTime;
+        }
+
+        public long getEndTime() {
+            return endTime;
+        }
+
+        public void setEndTime(long endTime) {
+            this.endTime = endTime;
+        }
+
+        public long getStep() {
+            return step;
+        }
+
+        public void setStep(long step) {
+            this.step = step;
+        }
+
+        public BigInteger getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigInteger amount) {
+            this.amount = amount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            LockAddedEvent that = (LockAddedEvent) o;
+
+            if (lockType != that.lockType) return false;
+            if (startTime != that.startTime) return false;
+            if (cliffTime != that.cliffTime) return false;
+            if (endTime != that.endTime) return false;
+            if (step != that.step) return false;
+            if (address != null ? !address.equals(that.address) : that.address != null) return false;
+            return amount != null ? amount.equals(that.amount) : that.amount == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = address != null ? address.hashCode() : 0;
+            result = 31 * result + lockType;
+            result = 31 * result + (int) (startTime ^ (startTime >>> 32));
+            result = 31 * result + (int) (cliffTime ^ (cliffTime >>> 32));
+            result = 31 * result + (int) (endTime ^ (endTime >>> 32));
+            result = 31 * result + (int) (step ^ (step >>> 32));
+            result = 31 * result + (amount != null ? amount.hashCode() : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "LockAddedEvent{" +
+                    "address=" + address +
+                    ", lockType=" + lockType +
+                    ", startTime=" + startTime +
+                    ", cliffTime=" + cliffTime +
+                    ", endTime=" + endTime +
+                    ", step=" + step +
+                    ", amount=" + amount +
+                    '}';
+        }
+    }
+
+    class LockRemovedEvent implements Event {
+
+        private Address address;
+
+        private int lockType;
+
+        private long startTime;
+
+        private long cliffTime;
+
+        private long endTime;
+
+        private long step;
+
+        private BigInteger amount;
+
+        public LockRemovedEvent(@Required Address address, int lockType, long startTime, long endTime, @Required BigInteger amount) {
+            this(address, lockType, startTime, 0, endTime, 0, amount);
+        }
+
+        // cliffTime and step describe vesting locks and are 0 for every other lock type.
+        public LockRemovedEvent(@Required Address address, int lockType, long startTime, long cliffTime, long endTime, long step, @Required BigInteger amount) {
+            this.address = address;
+            this.lockType = lockType;
+            this.startTime = startTime;
+            this.cliffTime = cliffTime;
+            this.endTime = endTime;
+            this.step = step;
+            this.amount = amount;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public void setAddress(Address address) {
+            this.address = address;
+        }
+
+        public int getLockType() {
+            return lockType;
+        }
+
+        public void setLockType(int lockType) {
+            this.lockType = lockType;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public void setStartTime(long startTime) {
+            this.startTime = startTime;
+        }
+
+        public long getCliffTime() {
+            return cliffTime;
+        }
+
+        public void setCliffTime(long cliffTime) {
+            this.cliffTime = cliffTime;
+        }
+
+        public long getEndTime() {
+            return endTime;
+        }
+
+        public void setEndTime(long endTime) {
+            this.endTime = endTime;
+        }
+
+        public long getStep() {
+            return step;
+        }
+
+        public void setStep(long step) {
+            this.step = step;
+        }
+
+        public BigInteger getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigInteger amount) {
+            this.amount = amount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            LockRemovedEvent that = (LockRemovedEvent) o;
+
+            if (lockType != that.lockType) return false;
+            if (startTime != that.startTime) return false;
+            if (cliffTime != that.cliffTime) return false;
+            if (endTime != that.endTime) return false;
+            if (step != that.step) return false;
+            if (address != null ? !address.equals(that.address) : that.address != null) return false;
+            return amount != null ? amount.equals(that.amount) : that.amount == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = address != null ? address.hashCode() : 0;
+            result = 31 * result + lockType;
+            result = 31 * result + (int) (startTime ^ (startTime >>> 32));
+            result = 31 * result + (int) (cliffTime ^ (cliffTime >>> 32));
+            result = 31 * result + (int) (endTime ^ (endTime >>> 32));
+            result = 31 * result + (int) (step ^ (step >>> 32));
+            result = 31 * result + (amount != null ? amount.hashCode() : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "LockRemovedEvent{" +
+                    "address=" + address +
+                    ", lockType=" + lockType +
+                    ", startTime=" + startTime +
+                    ", cliffTime=" + cliffTime +
+                    ", endTime=" + endTime +
+                    ", step=" + step +
+                    ", amount=" + amount +
+                    '}';
+        }
+    }
+
+    class LockUpdatedEvent implements Event {
+
+        private Address address;
+
+        private int lockType;
+
+        private long startTime;
+
+        private long cliffTime;
+
+        private long endTime;
+
+        private long step;
+
+        private BigInteger amount;
+
+        public LockUpdatedEvent(@Required Address address, int lockType, long startTime, long endTime, @Required BigInteger amount) {
+            this(address, lockType, startTime, 0, endTime, 0, amount);
+        }
+
+        // cliffTime and step describe vesting locks and are 0 for every other lock type.
+        public LockUpdatedEvent(@Required Address address, int lockType, long startTime, long cliffTime, long endTime, long step, @Required BigInteger amount) {
+            this.address = address;
+            this.lockType = lockType;
+            this.startTime = startTime;
+            this.cliffTime = cliffTime;
+            this.endTime = endTime;
+            this.step = step;
+            this.amount = amount;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public void setAddress(Address address) {
+            this.address = address;
+        }
+
+        public int getLockType() {
+            return lockType;
+        }
+
+        public void setLockType(int lockType) {
+            this.lockType = lockType;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public void setStartTime(long startTime) {
+            this.startTime = startTime;
+        }
+
+        public long getCliffTime() {
+            return cliffTime;
+        }
+
+        public void setCliffTime(long cliffTime) {
+            this.cliffTime = cliffTime;
+        }
+
+        public long getEndTime() {
+            return endTime;
+        }
+
+        public void setEndTime(long endTime) {
+            this.endTime = endTime;
+        }
+
+        public long getStep() {
+            return step;
+        }
+
+        public void setStep(long step) {
+            this.step = step;
+        }
+
+        public BigInteger getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigInteger amount) {
+            this.amount = amount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            LockUpdatedEvent that = (LockUpdatedEvent) o;
+
+            if (lockType != that.lockType) return false;
+            if (startTime != that.startTime) return false;
+            if (cliffTime != that.cliffTime) return false;
+            if (endTime != that.endTime) return false;
+            if (step != that.step) return false;
+            if (address != null ? !address.equals(that.address) : that.address != null) return false;
+            return amount != null ? amount.equals(that.amount) : that.amount == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = address != null ? address.hashCode() : 0;
+            result = 31 * result + lockType;
+            result = 31 * result + (int) (startTime ^ (startTime >>> 32));
+            result = 31 * result + (int) (cliffTime ^ (cliffTime >>> 32));
+            result = 31 * result + (int) (endTime ^ (endTime >>> 32));
+            result = 31 * result + (int) (step ^ (step >>> 32));
+            result = 31 * result + (amount != null ? amount.hashCode() : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "LockUpdatedEvent{" +
+                    "address=" + address +
+                    ", lockType=" + lockType +
+                    ", startTime=" + startTime +
+                    ", cliffTime=" + cliffTime +
+                    ", endTime=" + endTime +
+                    ", step=" + step +
+                    ", amount=" + amount +
+                    '}';
+        }
+    }
+
+    class AccountFrozenEvent implements Event {
+
+        private Address address;
+
+        private boolean frozen;
+
+        public AccountFrozenEvent(@Required Address address, boolean frozen) {
+            this.address = address;
+            this.frozen = frozen;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public void setAddress(Address address) {
+            this.address = address;
+        }
+
+        public boolean isFrozen() {
+            return frozen;
+        }
+
+        public void setFrozen(boolean frozen) {
+            this.frozen = frozen;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            AccountFrozenEvent that = (AccountFrozenEvent) o;
+
+            if (frozen != that.frozen) return false;
+            return address != null ? address.equals(that.address) : that.address == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = address != null ? address.hashCode() : 0;
+            result = 31 * result + (frozen ? 1 : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "AccountFrozenEvent{" +
+                    "address=" + address +
+                    ", frozen=" + frozen +
+                    '}';
+        }
+    }
 }
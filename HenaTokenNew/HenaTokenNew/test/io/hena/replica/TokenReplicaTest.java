@@ -0,0 +1,166 @@
+package io.hena.replica;
+
+import io.hena.token.HenaToken;
+import io.hena.token.Token;
+import io.hena.token.TokenTestSupport;
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.Event;
+import io.nuls.contract.sdk.Utils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Replays the events of a real contract run and checks the replica against the contract views.
+ */
+public class TokenReplicaTest extends TokenTestSupport {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Address carol = address("carol");
+    private final Address spender = address("spender");
+    private final List<Address> accounts = Arrays.asList(owner, alice, bob, carol, spender, address("g1"), address("miner"));
+
+    @Before
+    public void deployWithEvents() {
+        // The shared deploy drops the constructor events; redeploy so the stream starts at genesis.
+        Utils.clearEvents();
+        as(owner);
+        token = new HenaToken("Hena", "HENA", owner, owner, new String[]{"alice", "bob", "owner"}, new long[]{1000, 1000, 1000000});
+    }
+
+    private void runScenario() {
+        token.distributeGenesis(new String[]{"g1", "owner"}, new long[]{50, 7});
+        token.transfer(carol, amount(300 * UNIT));
+        token.transferBatch(new Address[]{alice, bob}, new BigInteger[]{amount(5), amount(6)});
+        token.transferPOCM(address("miner"), amount(40), now() + DAY);
+
+        as(alice);
+        token.transfer(carol, amount(20 * UNIT));
+        token.approve(spender, amount(500));
+        as(bob);
+        token.approve(spender, BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE));
+        as(carol);
+        token.approve(spender, amount(100));
+        token.approve(spender, amount(0));
+
+        as(spender);
+        token.transferFrom(alice, carol, amount(200));
+        token.transferFromBatch(alice, new Address[]{bob, spender}, new BigInteger[]{amount(100), amount(50)});
+        token.transferFrom(bob, carol, amount(70));
+        as(carol);
+        token.transfer(carol, amount(1));
+
+        as(owner);
+        token.finishGenesis();
+        token.burn(amount(3 * UNIT));
+    }
+
+    private static List<String> eventLines() {
+        List<String> lines = new ArrayList<String>();
+        for (Event event : Utils.events()) {
+            if (event instanceof Token.TransferEvent) {
+                Token.TransferEvent transfer = (Token.TransferEvent) event;
+                String from = transfer.getFrom() == null ? EventStream.MINT : transfer.getFrom().toString();
+                lines.add("transfer " + from + " " + transfer.getTo() + " " + transfer.getValue());
+            } else if (event instanceof Token.ApprovalEvent) {
+                Token.ApprovalEvent approval = (Token.ApprovalEvent) event;
+                lines.add("approval " + approval.getOwner() + " " + approval.getSpender() + " " + approval.getValue());
+            } else if (event instanceof Token.BurnEvent) {
+                lines.add("burn " + ((Token.BurnEvent) event).getValue());
+            }
+        }
+        return lines;
+    }
+
+    private TokenReplica freshReplica() {
+        return new TokenReplica(owner.toString(), 1000000000L * UNIT);
+    }
+
+    private void assertMatchesContract(TokenReplica replica) {
+        assertEquals(token.totalSupply().longValue(), replica.totalSupply());
+        assertEquals(token.holderCount(), replica.holderCount());
+        for (Address account : accounts) {
+            assertEquals(account.toString(), balance(account), replica.balanceOf(account.toString()));
+            for (Address other : accounts) {
+                assertEquals(account + "/" + other, token.allowance(account, other).longValue(),
+                        replica.allowance(account.toString(), other.toString()));
+            }
+        }
+        for (String address : replica.addresses()) {
+            assertEquals(address, balance(address(address)), replica.balanceOf(address));
+        }
+    }
+
+    private static String join(List<String> lines) {
+        StringBuilder text = new StringBuilder("# hena events\n");
+        for (String line : lines) {
+            text.append(line).append('\n');
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void replayMatchesTheContract() throws IOException {
+        runScenario();
+        List<String> lines = eventLines();
+        TokenReplica replica = freshReplica();
+
+        long applied = new EventStream(replica).replay(new StringReader(join(lines)));
+
+        assertEquals(lines.size(), applied);
+        assertEquals(lines.size(), replica.appliedEvents());
+        assertMatchesContract(replica);
+    }
+
+    @Test
+    public void replayResumesFromASnapshot() throws IOException {
+        runScenario();
+        List<String> lines = eventLines();
+        File events = folder.newFile("events.log");
+        File snapshot = new File(folder.getRoot(), "replica.snapshot");
+
+        Files.write(events.toPath(), join(lines.subList(0, lines.size() / 2)).getBytes(StandardCharsets.UTF_8));
+        new EventStream(freshReplica(), snapshot, 3).replay(events);
+
+        Files.write(events.toPath(), join(lines).getBytes(StandardCharsets.UTF_8));
+        TokenReplica resumed = TokenReplica.readSnapshot(snapshot);
+        assertEquals(lines.size() / 2, resumed.appliedEvents());
+        long applied = new EventStream(resumed, snapshot, 3).replay(events);
+
+        assertEquals(lines.size() - lines.size() / 2, applied);
+        assertMatchesContract(resumed);
+        assertMatchesContract(TokenReplica.readSnapshot(snapshot));
+    }
+
+    @Test
+    public void genesisCreditsDoNotTouchTheOwnerBalance() throws IOException {
+        TokenReplica replica = freshReplica();
+        new EventStream(replica).replay(new StringReader(join(eventLines())));
+
+        assertEquals(1000000 * UNIT, replica.balanceOf(owner.toString()));
+        assertMatchesContract(replica);
+    }
+
+    @Test
+    public void aStreamThatOverdrawsIsRejected() {
+        TokenReplica replica = freshReplica();
+        assertThrows(IOException.class, () -> new EventStream(replica).replay(new StringReader("transfer alice bob 5\n")));
+        assertThrows(IOException.class, () -> new EventStream(replica).replay(new StringReader("mint alice 5\n")));
+    }
+}
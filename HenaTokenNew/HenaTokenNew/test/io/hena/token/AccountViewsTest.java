@@ -0,0 +1,47 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class AccountViewsTest extends TokenTestSupport {
+
+    private final Address carol = address("carol");
+
+    @Test
+    public void balancesOfFollowsTheRequestedOrder() {
+        token.transfer(carol, amount(5));
+        assertEquals("[\"5\",\"" + 1000 * UNIT + "\",\"0\",\"5\"]",
+                token.balancesOf(new Address[]{carol, alice, address("nobody"), carol}));
+        assertEquals("[]", token.balancesOf(new Address[0]));
+    }
+
+    @Test
+    public void accountStatesReportBalancesLocksAndTags() {
+        token.transfer(carol, amount(100));
+        token.transferLock(carol, amount(40), now() + DAY);
+        token.setTag(carol, "team");
+        token.lock(bob);
+
+        String states = token.accountStates(new Address[]{carol, bob, address("nobody")});
+        assertEquals(Arrays.asList("carol", "bob", "nobody"), jsonValues(states, "address"));
+        assertEquals(Arrays.asList("140", String.valueOf(1000 * UNIT), "0"), jsonValues(states, "balance"));
+        assertEquals(Arrays.asList("100", "0", "0"), jsonValues(states, "availableBalance"));
+        assertEquals(Arrays.asList("40", String.valueOf(1000 * UNIT), "0"), jsonValues(states, "lockedBalance"));
+        assertEquals(Arrays.asList("false", "true", "false"), jsonValues(states, "totalLocked"));
+        assertEquals(Arrays.asList("team"), jsonValues(states, "tag"));
+        assertEquals(3, states.split("\"tag\":").length - 1);
+    }
+
+    @Test
+    public void accountStatesFollowTheClock() {
+        token.transferLock(carol, amount(40), now() + DAY);
+        setTime(now() + DAY + 1);
+        String states = token.accountStates(new Address[]{carol});
+        assertEquals(Arrays.asList("40"), jsonValues(states, "availableBalance"));
+        assertEquals(Arrays.asList("0"), jsonValues(states, "lockedBalance"));
+    }
+}
@@ -0,0 +1,103 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AddressIndexTest extends TokenTestSupport {
+
+    private List<String> walkHolders(int limit, Runnable betweenPages) {
+        List<String> seen = new ArrayList<String>();
+        long cursor = 0;
+        while (cursor >= 0) {
+            String page = token.holdersPage(cursor, limit);
+            seen.addAll(jsonValues(page, "address"));
+            cursor = Long.parseLong(jsonValues(page, "next").get(0));
+            betweenPages.run();
+        }
+        return seen;
+    }
+
+    @Test
+    public void holdersPageVisitsStableHoldersOnceWhileOthersComeAndGo() {
+        for (int i = 0; i < 10; i++) {
+            token.transfer(address("h" + i), amount(10));
+        }
+        final int[] round = {0};
+        List<String> seen = walkHolders(3, new Runnable() {
+            @Override
+            public void run() {
+                int i = round[0]++;
+                if (i < 3) {
+                    // An early holder leaves, which used to move the last holder into its slot.
+                    as(address("h" + i));
+                    token.transfer(owner, amount(10));
+                    as(owner);
+                    token.transfer(address("late" + i), amount(1));
+                }
+            }
+        });
+
+        for (int i = 3; i < 10; i++) {
+            assertEquals("h" + i, 1, Collections.frequency(seen, "h" + i));
+        }
+        assertEquals(1, Collections.frequency(seen, "alice"));
+        assertEquals(1, Collections.frequency(seen, "owner"));
+    }
+
+    @Test
+    public void holderCountFollowsBalances() {
+        int initial = token.holderCount();
+        Address carol = address("carol");
+        token.transfer(carol, amount(5));
+        assertEquals(initial + 1, token.holderCount());
+
+        as(carol);
+        token.transfer(owner, amount(5));
+        assertEquals(initial, token.holderCount());
+        assertFalse(token.holdersPage(0, 100).contains("carol"));
+    }
+
+    @Test
+    public void lockByTagHandlesEveryMemberWhenOthersAreRetaggedBetweenPages() {
+        Address[] members = {address("g1"), address("g2"), address("g3"), address("g4"), address("g5")};
+        token.setTagBatch(members, "team");
+
+        long cursor = token.lockByTag("team", 0, 2);
+        token.setTag(members[0], "other");
+        while (cursor >= 0) {
+            cursor = token.lockByTag("team", cursor, 2);
+        }
+
+        for (int i = 1; i < members.length; i++) {
+            assertTrue(token.getLockState(members[i]).contains("totalLocked:true"));
+        }
+        assertEquals(4, token.getTagMemberCount("team"));
+        assertEquals(1, token.getTagMemberCount("other"));
+    }
+
+    @Test
+    public void clearingTheTagOfAnUnknownAddressCreatesNoAccount() {
+        Address stranger = address("stranger");
+        token.setTag(stranger, "");
+        assertNull(token.getAccount(stranger));
+
+        token.setTag(stranger, "team");
+        token.setTag(stranger, "");
+        assertNull(token.getAccount(stranger));
+        assertEquals(0, token.getTagMemberCount("team"));
+    }
+
+    @Test
+    public void emptyTagPagesEndImmediately() {
+        assertEquals(-1, token.lockByTag("nobody", 0, 10));
+    }
+}
@@ -0,0 +1,114 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.RevertException;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class AllowanceTest extends TokenTestSupport {
+
+    private final Address spender = address("spender");
+    private final Address carol = address("carol");
+
+    // Entries in the flat (owner, spender) allowance map.
+    private int allowanceEntries() {
+        try {
+            Field field = HenaToken.class.getDeclaredField("allowed");
+            field.setAccessible(true);
+            return ((Map<?, ?>) field.get(token)).size();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void allowancesAreKeptPerOwnerAndSpender() {
+        as(alice);
+        token.approve(spender, amount(100));
+        token.approve(bob, amount(50));
+        as(bob);
+        token.approve(alice, amount(7));
+
+        assertEquals(3, allowanceEntries());
+        assertEquals(100, token.allowance(alice, spender).longValue());
+        assertEquals(50, token.allowance(alice, bob).longValue());
+        assertEquals(7, token.allowance(bob, alice).longValue());
+        assertEquals(0, token.allowance(spender, alice).longValue());
+
+        as(alice);
+        token.approve(spender, amount(30));
+        assertEquals(30, token.allowance(alice, spender).longValue());
+        assertEquals(3, allowanceEntries());
+    }
+
+    @Test
+    public void allowanceSpentToZeroIsRemoved() {
+        as(alice);
+        token.approve(spender, amount(100));
+        as(spender);
+        token.transferFrom(alice, carol, amount(60));
+        assertEquals(40, token.allowance(alice, spender).longValue());
+        assertEquals(1, allowanceEntries());
+
+        assertThrows(RevertException.class, () -> token.transferFrom(alice, carol, amount(41)));
+        token.transferFrom(alice, carol, amount(40));
+        assertEquals(0, token.allowance(alice, spender).longValue());
+        assertEquals(0, allowanceEntries());
+        assertEquals(new Token.ApprovalEvent(alice, spender, amount(0)), last(events(Token.ApprovalEvent.class)));
+        assertThrows(RevertException.class, () -> token.transferFrom(alice, carol, amount(1)));
+    }
+
+    @Test
+    public void approvingZeroRemovesTheAllowance() {
+        as(alice);
+        token.approve(spender, amount(100));
+        token.approve(spender, amount(0));
+        assertEquals(0, allowanceEntries());
+        assertTrue(token.approve(spender, amount(0)));
+        assertEquals(0, allowanceEntries());
+    }
+
+    private static <T> T last(List<T> list) {
+        return list.get(list.size() - 1);
+    }
+
+    @Test
+    public void approvalsBeyondLongAreUnlimited() {
+        BigInteger max = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE);
+        as(alice);
+        token.approve(spender, max);
+        assertEquals(Long.MAX_VALUE, token.allowance(alice, spender).longValue());
+        assertEquals(max, events(Token.ApprovalEvent.class).get(0).getValue());
+
+        as(bob);
+        token.approve(spender, BigInteger.ONE.shiftLeft(63));
+        assertEquals(Long.MAX_VALUE, token.allowance(bob, spender).longValue());
+    }
+
+    @Test
+    public void unlimitedAllowanceIsNotSpentDown() {
+        as(alice);
+        token.approve(spender, BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE));
+
+        as(spender);
+        token.transferFrom(alice, carol, amount(300));
+        token.transferFrom(alice, carol, amount(200));
+
+        assertEquals(500, balance(carol));
+        assertEquals(Long.MAX_VALUE, token.allowance(alice, spender).longValue());
+    }
+
+    @Test
+    public void negativeApprovalReverts() {
+        as(alice);
+        assertThrows(RevertException.class, () -> token.approve(spender, amount(-1)));
+    }
+}
@@ -0,0 +1,119 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.RevertException;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class BatchTransferTest extends TokenTestSupport {
+
+    private final Address carol = address("carol");
+    private final Address dave = address("dave");
+    private final Address spender = address("spender");
+
+    private static Address[] to(Address... addresses) {
+        return addresses;
+    }
+
+    private static BigInteger[] values(long... values) {
+        BigInteger[] result = new BigInteger[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = amount(values[i]);
+        }
+        return result;
+    }
+
+    @Test
+    public void transferBatchDebitsOnceAndCreditsEveryRecipient() {
+        as(alice);
+        token.transferBatch(to(carol, dave, carol), values(100, 200, 300));
+
+        assertEquals(1000 * UNIT - 600, balance(alice));
+        assertEquals(400, balance(carol));
+        assertEquals(200, balance(dave));
+        List<Token.TransferEvent> transfers = events(Token.TransferEvent.class);
+        assertEquals(3, transfers.size());
+        assertEquals(new Token.TransferEvent(alice, dave, amount(200)), transfers.get(1));
+    }
+
+    @Test
+    public void transferBatchChecksTheTotalAgainstTheAvailableBalance() {
+        token.transferLock(carol, amount(500), now() + DAY);
+        token.transfer(carol, amount(100));
+        as(carol);
+
+        assertThrows(RevertException.class, () -> token.transferBatch(to(dave, alice), values(60, 60)));
+        assertEquals(0, balance(dave));
+        token.transferBatch(to(dave, alice), values(60, 40));
+        assertEquals(60, balance(dave));
+        assertEquals(500, balance(carol));
+    }
+
+    @Test
+    public void malformedBatchesRevert() {
+        as(alice);
+        assertThrows(RevertException.class, () -> token.transferBatch(to(carol, dave), values(1)));
+        assertThrows(RevertException.class, () -> token.transferBatch(to(), values()));
+        assertThrows(RevertException.class, () -> token.transferBatch(to(carol), values(-1)));
+        assertThrows(RevertException.class, () -> token.transferBatch(to(carol, null), values(1, 1)));
+
+        as(owner);
+        token.stopTransfer();
+        as(alice);
+        assertThrows(RevertException.class, () -> token.transferBatch(to(carol), values(1)));
+    }
+
+    @Test
+    public void transferFromBatchSpendsTheAllowanceOnce() {
+        as(alice);
+        token.approve(spender, amount(1000));
+        as(spender);
+        token.transferFromBatch(alice, to(carol, dave), values(300, 200));
+
+        assertEquals(500, token.allowance(alice, spender).longValue());
+        assertEquals(300, balance(carol));
+        assertEquals(200, balance(dave));
+        List<Token.ApprovalEvent> approvals = events(Token.ApprovalEvent.class);
+        assertEquals(2, approvals.size());
+        assertEquals(new Token.ApprovalEvent(alice, spender, amount(500)), approvals.get(1));
+        assertEquals(2, events(Token.TransferEvent.class).size());
+
+        assertThrows(RevertException.class, () -> token.transferFromBatch(alice, to(carol, dave), values(300, 201)));
+        assertEquals(500, token.allowance(alice, spender).longValue());
+    }
+
+    @Test
+    public void transferPOCMBatchCreditsAndLocksEveryRecipient() {
+        long lockTime = now() + 10 * DAY;
+        token.transferPOCMBatch(to(carol, dave), values(100, 200), lockTime);
+
+        assertEquals(100, balance(carol));
+        assertEquals(0, available(carol));
+        assertEquals(0, available(dave));
+        assertEquals(1000000 * UNIT - 300, balance(owner));
+        List<Token.LockAddedEvent> locks = events(Token.LockAddedEvent.class);
+        assertEquals(2, locks.size());
+        assertEquals(dave, locks.get(1).getAddress());
+        assertEquals(lockTime, locks.get(1).getEndTime());
+
+        setTime(lockTime + 1);
+        assertEquals(200, available(dave));
+    }
+
+    @Test
+    public void transferPOCMBatchIsReservedForThePOCMAddress() {
+        as(alice);
+        assertThrows(RevertException.class, () -> token.transferPOCMBatch(to(carol), values(1), now() + DAY));
+
+        as(owner);
+        token.setPOCMAddress(alice);
+        as(alice);
+        token.transferPOCMBatch(to(carol), values(1), now() + DAY);
+        assertEquals(1, balance(carol));
+    }
+}
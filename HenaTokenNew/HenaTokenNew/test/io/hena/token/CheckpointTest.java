@@ -0,0 +1,68 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class CheckpointTest extends TokenTestSupport {
+
+    private final Address carol = address("carol");
+
+    @Test
+    public void balanceOfAtFollowsTransfers() {
+        long deployed = now();
+        assertEquals(0, token.balanceOfAt(alice, deployed - 1).longValue());
+        assertEquals(1000 * UNIT, token.balanceOfAt(alice, deployed).longValue());
+
+        setTime(deployed + 10);
+        as(alice);
+        token.transfer(carol, amount(100));
+        setTime(deployed + 20);
+        token.transfer(carol, amount(50));
+
+        assertEquals(0, token.balanceOfAt(carol, deployed + 9).longValue());
+        assertEquals(100, token.balanceOfAt(carol, deployed + 10).longValue());
+        assertEquals(100, token.balanceOfAt(carol, deployed + 19).longValue());
+        assertEquals(150, token.balanceOfAt(carol, deployed + 20).longValue());
+        assertEquals(1000 * UNIT - 150, token.balanceOfAt(alice, deployed + 1000).longValue());
+    }
+
+    @Test
+    public void laterWritesAtTheSameTimeOverwriteTheCheckpoint() {
+        setTime(now() + 10);
+        token.transfer(carol, amount(1));
+        token.transfer(carol, amount(2));
+        token.transfer(carol, amount(3));
+
+        assertEquals(6, token.balanceOfAt(carol, now()).longValue());
+        assertEquals(1, token.getAccount(carol).checkpointCount);
+    }
+
+    @Test
+    public void totalSupplyAtFollowsBurns() {
+        long deployed = now();
+        long initial = token.totalSupply().longValue();
+        setTime(deployed + 50);
+        token.burn(amount(UNIT));
+
+        assertEquals(0, token.totalSupplyAt(deployed - 1).longValue());
+        assertEquals(initial, token.totalSupplyAt(deployed + 49).longValue());
+        assertEquals(initial - UNIT, token.totalSupplyAt(deployed + 50).longValue());
+    }
+
+    @Test
+    public void formerHoldersKeepTheirHistory() {
+        long start = now();
+        token.transfer(carol, amount(10));
+        setTime(start + 10);
+        as(carol);
+        token.transfer(owner, amount(10));
+
+        assertNotNull(token.getAccount(carol));
+        assertEquals(10, token.balanceOfAt(carol, start).longValue());
+        assertEquals(0, token.balanceOfAt(carol, start + 10).longValue());
+        assertEquals(0, token.balanceOfAt(address("nobody"), start).longValue());
+    }
+}
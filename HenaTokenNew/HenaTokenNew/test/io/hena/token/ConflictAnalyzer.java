@@ -0,0 +1,242 @@
+package io.hena.token;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Builds the conflict graph of a sequence of calls recorded by a {@link StateProbe} and packs the
+ * calls into batches that could run in parallel.
+ * <p>
+ * Two calls conflict when one writes a slot the other reads or writes. Writes to a {@code #size}
+ * slot only add to or take from a count, so two of them commute and conflict only with a read of
+ * that count. The probe cannot see scalar reads, so every call is assumed to read every scalar
+ * slot: a call that writes a scalar conflicts with every other call.
+ * <p>
+ * Calls are scheduled greedily in order: each one goes into the batch right after the latest
+ * batch holding a call it conflicts with. The batch sizes are an upper bound on the parallelism a
+ * block of these calls offers.
+ */
+public class ConflictAnalyzer {
+
+    private final List<StateProbe.CallRecord> calls;
+    private final Set<String> scalarSlots;
+    private final List<Set<String>> reads = new ArrayList<Set<String>>();
+    private final List<int[]> edges = new ArrayList<int[]>();
+    private final Map<String, Integer> edgesByField = new TreeMap<String, Integer>();
+    private final Map<String, Integer> edgesByMethods = new TreeMap<String, Integer>();
+    private final int[] batchOf;
+    private final List<Integer> batchSizes = new ArrayList<Integer>();
+
+    public ConflictAnalyzer(List<StateProbe.CallRecord> calls, Set<String> scalarSlots) {
+        this.calls = calls;
+        this.scalarSlots = scalarSlots;
+        this.batchOf = new int[calls.size()];
+        for (StateProbe.CallRecord call : calls) {
+            Set<String> read = new LinkedHashSet<String>(call.reads);
+            read.addAll(scalarSlots);
+            reads.add(read);
+        }
+        buildGraph();
+        schedule();
+    }
+
+    public ConflictAnalyzer(StateProbe probe) {
+        this(probe.history(), probe.scalarSlots());
+    }
+
+    /**
+     * Conflicting call pairs as {earlier, later} indexes into the call list.
+     */
+    public List<int[]> edges() {
+        return edges;
+    }
+
+    public int batchOf(int call) {
+        return batchOf[call];
+    }
+
+    public List<Integer> batchSizes() {
+        return batchSizes;
+    }
+
+    /**
+     * Returns the first slot that makes the two calls conflict, or null if they do not.
+     */
+    public String conflict(int first, int second) {
+        String slot = conflictingSlot(calls.get(first).writes, reads.get(second), calls.get(second).writes);
+        if (slot == null) {
+            slot = conflictingSlot(calls.get(second).writes, reads.get(first), calls.get(first).writes);
+        }
+        return slot;
+    }
+
+    private static String conflictingSlot(Set<String> writes, Set<String> otherReads, Set<String> otherWrites) {
+        for (String slot : writes) {
+            if (otherReads.contains(slot) || (otherWrites.contains(slot) && !slot.endsWith(StateProbe.SIZE))) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Only pairs that share a recorded slot are compared. The assumed scalar reads are left out of
+     * the index; a call that writes a scalar is instead compared with every earlier call.
+     */
+    private void buildGraph() {
+        Map<String, List<Integer>> touching = new HashMap<String, List<Integer>>();
+        for (int i = 0; i < calls.size(); i++) {
+            StateProbe.CallRecord call = calls.get(i);
+            Set<Integer> candidates = new LinkedHashSet<Integer>();
+            if (writesScalar(call)) {
+                for (int j = 0; j < i; j++) {
+                    candidates.add(j);
+                }
+            } else {
+                for (String slot : call.writes) {
+                    addAll(candidates, touching.get(slot));
+                }
+                for (String slot : reads.get(i)) {
+                    addAll(candidates, touching.get(slot));
+                }
+            }
+            for (int j : candidates) {
+                String slot = conflict(j, i);
+                if (slot != null) {
+                    edges.add(new int[]{j, i});
+                    increment(edgesByField, field(slot));
+                    increment(edgesByMethods, calls.get(j).method + "/" + call.method);
+                }
+            }
+            for (String slot : call.writes) {
+                touch(touching, slot, i);
+            }
+            for (String slot : call.reads) {
+                touch(touching, slot, i);
+            }
+        }
+    }
+
+    private boolean writesScalar(StateProbe.CallRecord call) {
+        for (String slot : call.writes) {
+            if (scalarSlots.contains(slot)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addAll(Set<Integer> candidates, List<Integer> indexes) {
+        if (indexes != null) {
+            candidates.addAll(indexes);
+        }
+    }
+
+    private static void touch(Map<String, List<Integer>> touching, String slot, int call) {
+        List<Integer> indexes = touching.get(slot);
+        if (indexes == null) {
+            indexes = new ArrayList<Integer>();
+            touching.put(slot, indexes);
+        }
+        if (indexes.isEmpty() || indexes.get(indexes.size() - 1) != call) {
+            indexes.add(call);
+        }
+    }
+
+    private void schedule() {
+        List<List<Integer>> earlier = new ArrayList<List<Integer>>();
+        for (int i = 0; i < calls.size(); i++) {
+            earlier.add(new ArrayList<Integer>());
+        }
+        for (int[] edge : edges) {
+            earlier.get(edge[1]).add(edge[0]);
+        }
+        for (int i = 0; i < calls.size(); i++) {
+            int batch = 0;
+            for (int j : earlier.get(i)) {
+                batch = Math.max(batch, batchOf[j] + 1);
+            }
+            batchOf[i] = batch;
+            while (batchSizes.size() <= batch) {
+                batchSizes.add(0);
+            }
+            batchSizes.set(batch, batchSizes.get(batch) + 1);
+        }
+    }
+
+    /**
+     * The field part of a slot name: checkpoints for checkpoints[...], accounts#size for itself.
+     */
+    private static String field(String slot) {
+        int bracket = slot.indexOf('[');
+        return bracket < 0 ? slot : slot.substring(0, bracket);
+    }
+
+    private static void increment(Map<String, Integer> counts, String key) {
+        Integer current = counts.get(key);
+        counts.put(key, current == null ? 1 : current + 1);
+    }
+
+    public String report() {
+        int largest = 0;
+        for (int size : batchSizes) {
+            largest = Math.max(largest, size);
+        }
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"calls\": ").append(calls.size()).append(",\n");
+        json.append("  \"edges\": ").append(edges.size()).append(",\n");
+        json.append("  \"batches\": ").append(batchSizes.size()).append(",\n");
+        json.append("  \"largestBatch\": ").append(largest).append(",\n");
+        json.append("  \"meanBatch\": ").append(batchSizes.isEmpty() ? "0"
+                : String.valueOf(Math.round(calls.size() * 100.0 / batchSizes.size()) / 100.0)).append(",\n");
+        json.append("  \"batchSizes\": ").append(batchSizes).append(",\n");
+        json.append("  \"edgesByField\": ").append(toJson(edgesByField)).append(",\n");
+        json.append("  \"edgesByMethods\": ").append(toJson(edgesByMethods)).append(",\n");
+        json.append("  \"schedule\": [");
+        String separator = "\n";
+        for (int i = 0; i < calls.size(); i++) {
+            json.append(separator).append("    {\"index\": ").append(i)
+                    .append(", \"method\": \"").append(calls.get(i).method).append('"')
+                    .append(", \"batch\": ").append(batchOf[i]).append('}');
+            separator = ",\n";
+        }
+        json.append("\n  ],\n  \"graph\": [");
+        separator = "";
+        for (int[] edge : edges) {
+            json.append(separator).append('[').append(edge[0]).append(", ").append(edge[1]).append(']');
+            separator = ", ";
+        }
+        return json.append("]\n}\n").toString();
+    }
+
+    public void writeReport(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8);
+        try {
+            writer.write(report());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String toJson(Map<String, Integer> counts) {
+        StringBuilder json = new StringBuilder("{");
+        String separator = "";
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\": ").append(entry.getValue());
+            separator = ", ";
+        }
+        return json.append("}").toString();
+    }
+}
@@ -0,0 +1,139 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConflictAnalyzerTest extends TokenTestSupport {
+
+    private StateProbe probe;
+    private int start;
+
+    @Before
+    public void fundHolders() {
+        for (int i = 0; i < 20; i++) {
+            token.transfer(address("h" + i), amount(1000));
+        }
+        setTime(now() + DAY);
+        probe = new StateProbe(token).keepHistory(true);
+    }
+
+    private void mark() {
+        start = probe.history().size();
+    }
+
+    private ConflictAnalyzer analyze() {
+        List<StateProbe.CallRecord> calls = probe.history().subList(start, probe.history().size());
+        return new ConflictAnalyzer(calls, probe.scalarSlots());
+    }
+
+    @Test
+    public void transfersBetweenDisjointHoldersFitInOneBatch() {
+        mark();
+        for (int i = 0; i < 20; i += 2) {
+            as(address("h" + i));
+            probe.call("transfer", address("h" + (i + 1)), amount(1));
+        }
+        ConflictAnalyzer analyzer = analyze();
+        assertEquals(0, analyzer.edges().size());
+        assertEquals(Arrays.asList(10), analyzer.batchSizes());
+    }
+
+    @Test
+    public void transfersToNewHoldersSerializeOnTheHolderSequence() {
+        mark();
+        for (int i = 0; i < 5; i++) {
+            as(address("h" + i));
+            probe.call("transfer", address("new" + i), amount(1));
+        }
+        ConflictAnalyzer analyzer = analyze();
+        assertEquals(Arrays.asList(1, 1, 1, 1, 1), analyzer.batchSizes());
+        assertEquals("holders.nextSeq", analyzer.conflict(0, 1));
+    }
+
+    @Test
+    public void transfersSharingAnAddressConflict() {
+        mark();
+        as(address("h0"));
+        probe.call("transfer", address("h1"), amount(1));
+        as(address("h2"));
+        probe.call("transfer", address("h3"), amount(1));
+        as(address("h1"));
+        probe.call("transfer", address("h4"), amount(1));
+
+        ConflictAnalyzer analyzer = analyze();
+        assertNull(analyzer.conflict(0, 1));
+        assertNotNull(analyzer.conflict(0, 2));
+        assertEquals(1, analyzer.edges().size());
+        assertEquals(0, analyzer.batchOf(1));
+        assertEquals(1, analyzer.batchOf(2));
+        assertEquals(Arrays.asList(2, 1), analyzer.batchSizes());
+    }
+
+    @Test
+    public void checkpointsOfDifferentOwnersDoNotCollide() {
+        // CheckpointKey(h1, i) and CheckpointKey(h0, i + 31) have the same hashCode.
+        Address h0 = address("h0");
+        Address h1 = address("h1");
+        for (int i = 0; i < 31; i++) {
+            setTime(now() + 1);
+            as(h0);
+            token.transfer(address("h2"), amount(1));
+        }
+        setTime(now() + 1);
+        mark();
+        as(h0);
+        probe.call("transfer", address("h2"), amount(1));
+        as(h1);
+        probe.call("transfer", address("h3"), amount(1));
+
+        ConflictAnalyzer analyzer = analyze();
+        assertTrue(probe.history().get(start).writes.contains("checkpoints[h0,32]"));
+        assertTrue(probe.history().get(start + 1).writes.contains("checkpoints[h1,1]"));
+        assertNull(analyzer.conflict(0, 1));
+    }
+
+    @Test
+    public void mixedBlockReportIsWritten() throws IOException {
+        mark();
+        Address spender = address("spender");
+        for (int i = 0; i < 10; i++) {
+            as(address("h" + i));
+            probe.call("approve", spender, amount(100));
+        }
+        for (int i = 0; i < 10; i++) {
+            as(address("h" + (10 + i)));
+            probe.call("transfer", address("h" + i), amount(1));
+            as(spender);
+            probe.call("transferFrom", address("h" + i), address("h" + (10 + i)), amount(1));
+            probe.call("availableBalanceOf", address("h" + i));
+        }
+        as(owner);
+        probe.call("transferLock", address("h0"), amount(1), now() + DAY);
+        probe.call("transferPOCM", address("h1"), amount(1), now() + DAY);
+
+        ConflictAnalyzer analyzer = analyze();
+        int scheduled = 0;
+        for (int size : analyzer.batchSizes()) {
+            scheduled += size;
+        }
+        assertEquals(42, scheduled);
+        for (int[] edge : analyzer.edges()) {
+            assertTrue(analyzer.batchOf(edge[1]) > analyzer.batchOf(edge[0]));
+        }
+
+        File report = new File(System.getProperty("report.dir", "target"), "conflict-report.json");
+        analyzer.writeReport(report);
+        assertTrue(report.length() > 0);
+    }
+}
@@ -0,0 +1,106 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 64-bit hash over the whole object graph below a value, used to notice state that was changed in place.
+ * Maps and sets are hashed independent of iteration order. References to an enclosing instance are skipped,
+ * so hashing an Account does not walk the whole contract.
+ */
+final class Fingerprint {
+
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final Map<Class<?>, List<Field>> FIELDS = new HashMap<Class<?>, List<Field>>();
+
+    private Fingerprint() {
+    }
+
+    static boolean isValue(Class<?> type) {
+        return type.isPrimitive() || Number.class.isAssignableFrom(type) || type == Boolean.class
+                || type == Character.class || type == String.class || type == Address.class || type == BigInteger.class;
+    }
+
+    static long of(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        Class<?> type = value.getClass();
+        if (isValue(type)) {
+            return mix(value.hashCode()) ^ type.getName().hashCode();
+        }
+        if (type.isArray()) {
+            int length = Array.getLength(value);
+            long hash = length;
+            for (int i = 0; i < length; i++) {
+                hash = hash * MULTIPLIER + of(Array.get(value, i));
+            }
+            return mix(hash);
+        }
+        if (value instanceof Map) {
+            long hash = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                hash += mix(of(entry.getKey()) * MULTIPLIER + of(entry.getValue()));
+            }
+            return mix(hash + ((Map<?, ?>) value).entrySet().size());
+        }
+        if (value instanceof Set) {
+            long hash = 0;
+            for (Object element : (Set<?>) value) {
+                hash += mix(of(element));
+            }
+            return mix(hash);
+        }
+        if (value instanceof Collection) {
+            long hash = 1;
+            for (Object element : (Collection<?>) value) {
+                hash = hash * MULTIPLIER + of(element);
+            }
+            return mix(hash);
+        }
+        long hash = type.getName().hashCode();
+        try {
+            for (Field field : fields(type)) {
+                hash = hash * MULTIPLIER + of(field.get(value));
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        return mix(hash);
+    }
+
+    // Instance fields of type and its superclasses, made accessible.
+    static List<Field> fields(Class<?> type) {
+        List<Field> fields = FIELDS.get(type);
+        if (fields == null) {
+            fields = new ArrayList<Field>();
+            for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            FIELDS.put(type, fields);
+        }
+        return fields;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
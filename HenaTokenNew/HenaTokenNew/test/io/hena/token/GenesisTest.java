@@ -0,0 +1,82 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.RevertException;
+import io.nuls.contract.sdk.Utils;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class GenesisTest extends TokenTestSupport {
+
+    @Test
+    public void chunksAreCreditedWithoutDebitingTheOwner() {
+        long ownerBalance = balance(owner);
+        long distributed = token.getGenesisDistributed().longValue();
+
+        token.distributeGenesis(new String[]{"g1", "g2"}, new long[]{10, 20});
+        token.distributeGenesis(new String[]{"g3"}, new long[]{30});
+
+        assertEquals(10 * UNIT, balance(address("g1")));
+        assertEquals(20 * UNIT, balance(address("g2")));
+        assertEquals(30 * UNIT, balance(address("g3")));
+        assertEquals(ownerBalance, balance(owner));
+        assertEquals(distributed + 60 * UNIT, token.getGenesisDistributed().longValue());
+        assertTrue(token.isImportantAddress(address("g3")));
+    }
+
+    @Test
+    public void genesisCreditsAreEmittedAsMints() {
+        token.distributeGenesis(new String[]{"g1", "owner"}, new long[]{10, 5});
+
+        List<Token.TransferEvent> transfers = events(Token.TransferEvent.class);
+        assertEquals(2, transfers.size());
+        for (Token.TransferEvent transfer : transfers) {
+            assertNull(transfer.getFrom());
+        }
+        assertEquals(owner, transfers.get(1).getTo());
+
+        Utils.clearEvents();
+        token.transfer(alice, amount(1));
+        assertEquals(owner, events(Token.TransferEvent.class).get(0).getFrom());
+    }
+
+    @Test
+    public void finishGenesisSealsTheDistribution() {
+        assertFalse(token.getGenesisFinished());
+        token.finishGenesis();
+
+        assertTrue(token.getGenesisFinished());
+        assertThrows(RevertException.class, () -> token.distributeGenesis(new String[]{"g1"}, new long[]{1}));
+        assertEquals(0, balance(address("g1")));
+    }
+
+    @Test
+    public void onlyTheOwnerDistributes() {
+        as(alice);
+        assertThrows(RevertException.class, () -> token.distributeGenesis(new String[]{"g1"}, new long[]{1}));
+        assertThrows(RevertException.class, () -> token.finishGenesis());
+    }
+
+    @Test
+    public void distributionCannotExceedTheTotalSupply() {
+        long left = (token.totalSupply().longValue() - token.getGenesisDistributed().longValue()) / UNIT;
+        token.distributeGenesis(new String[]{"g1"}, new long[]{left});
+
+        assertThrows(RevertException.class, () -> token.distributeGenesis(new String[]{"g2"}, new long[]{1}));
+    }
+
+    @Test
+    public void mismatchedOrNegativeChunksRevert() {
+        Address g1 = address("g1");
+        assertThrows(RevertException.class, () -> token.distributeGenesis(new String[]{"g1", "g2"}, new long[]{1}));
+        assertThrows(RevertException.class, () -> token.distributeGenesis(new String[]{"g1"}, new long[]{-1}));
+        assertEquals(0, balance(g1));
+    }
+}
@@ -0,0 +1,67 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.RevertException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class ImportantAddressTest extends TokenTestSupport {
+
+    private final Address carol = address("carol");
+    private final Address dave = address("dave");
+    private final Address erin = address("erin");
+
+    @Test
+    public void genesisReceiversStartImportant() {
+        assertTrue(token.isImportantAddress(alice));
+        assertTrue(token.isImportantAddress(bob));
+        assertFalse(token.isImportantAddress(carol));
+    }
+
+    @Test
+    public void bulkAddAndRemoveCountOnlyChanges() {
+        assertEquals(2, token.addImportantAddresses(new Address[]{carol, dave}));
+        assertEquals(1, token.addImportantAddresses(new Address[]{carol, erin, erin}));
+        assertTrue(token.isImportantAddress(erin));
+
+        assertEquals(2, token.removeImportantAddresses(new Address[]{carol, erin, address("nobody")}));
+        assertFalse(token.isImportantAddress(carol));
+        assertTrue(token.isImportantAddress(dave));
+        assertEquals(0, token.removeImportantAddresses(new Address[]{carol}));
+    }
+
+    @Test
+    public void importantAddressesAreProtectedFromTransferOwner() {
+        token.transfer(carol, amount(10));
+        token.addImportantAddresses(new Address[]{carol});
+        assertThrows(RevertException.class, () -> token.transferOwner(carol, dave, amount(1)));
+        assertThrows(RevertException.class, () -> token.transferOwner(alice, dave, amount(1)));
+
+        token.removeImportantAddresses(new Address[]{carol, alice});
+        token.transferOwner(carol, dave, amount(1));
+        token.transferOwner(alice, dave, amount(1));
+        assertEquals(2, balance(dave));
+    }
+
+    @Test
+    public void bulkAndSingleUpdatesShareOneSet() {
+        token.addImportantAddresses(new Address[]{carol});
+        assertFalse(token.setImportantAddress("carol"));
+        assertFalse(token.isImportantAddress(carol));
+        assertTrue(token.setImportantAddress("carol"));
+        assertEquals(0, token.addImportantAddresses(new Address[]{carol}));
+    }
+
+    @Test
+    public void onlyTheManagerUpdatesImportantAddresses() {
+        as(alice);
+        assertThrows(RevertException.class, () -> token.addImportantAddresses(new Address[]{carol}));
+        assertThrows(RevertException.class, () -> token.removeImportantAddresses(new Address[]{bob}));
+        assertFalse(token.isImportantAddress(carol));
+        assertTrue(token.isImportantAddress(bob));
+    }
+}
@@ -0,0 +1,89 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LockCacheTest extends TokenTestSupport {
+
+    private final Address carol = address("carol");
+
+    @Test
+    public void lockIsCountedUntilItsEndTimeInclusive() {
+        long start = now();
+        token.transferLock(carol, amount(1000), start + 500);
+        token.transferLock(carol, amount(500), start + 200);
+
+        assertEquals(0, available(carol));
+        setTime(start + 200);
+        assertEquals(0, available(carol));
+        setTime(start + 201);
+        assertEquals(500, available(carol));
+        setTime(start + 501);
+        assertEquals(1500, available(carol));
+    }
+
+    @Test
+    public void futureLockIsCountedFromItsStartTime() {
+        long start = now();
+        token.transfer(carol, amount(1000));
+        token.addLockNormal(carol, new long[]{start + 100}, new long[]{start + 200}, new int[]{30});
+
+        assertEquals(1000, available(carol));
+        setTime(start + 99);
+        assertEquals(1000, available(carol));
+        setTime(start + 100);
+        assertEquals(700, available(carol));
+        setTime(start + 201);
+        assertEquals(1000, available(carol));
+    }
+
+    @Test
+    public void lockAddedWhileCacheIsValidIsFoldedIn() {
+        long start = now();
+        token.transferLock(carol, amount(100), start + 1000);
+        assertEquals(0, available(carol));
+
+        token.transfer(carol, amount(50));
+        assertEquals(50, available(carol));
+        token.transferLock(carol, amount(10), start + 1000);
+        assertEquals(50, available(carol));
+        token.transferLock(carol, amount(20), start + 500);
+        assertEquals(50, available(carol));
+
+        setTime(start + 501);
+        assertEquals(70, available(carol));
+    }
+
+    @Test
+    public void setLockAndRemoveLockInvalidateTheCache() {
+        long start = now();
+        token.transferLock(carol, amount(100), start + 1000);
+        assertEquals(0, available(carol));
+
+        token.setLock(1, carol, start + 1000, amount(40));
+        assertEquals(60, available(carol));
+        assertEquals(1, token.removeLock(1, carol, start + 1000));
+        assertEquals(100, available(carol));
+    }
+
+    @Test
+    public void lockedBalanceNeverExceedsBalance() {
+        long start = now();
+        token.transferLock(carol, amount(100), start + 1000);
+        token.setLock(1, carol, start + 1000, amount(1000));
+
+        assertEquals(0, available(carol));
+        assertEquals(100, balance(carol));
+    }
+
+    @Test
+    public void frozenAccountHasNoAvailableBalance() {
+        token.transfer(carol, amount(100));
+        token.lock(carol);
+        assertEquals(0, available(carol));
+        token.unlock(carol);
+        assertEquals(100, available(carol));
+    }
+}
@@ -0,0 +1,106 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.RevertException;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class LockStatePageTest extends TokenTestSupport {
+
+    private final Address carol = address("carol");
+
+    private void lockFiveTimes() {
+        for (int i = 1; i <= 5; i++) {
+            token.transferLock(carol, amount(i * 10), now() + i * DAY);
+        }
+    }
+
+    private static void assertWellFormed(String json) {
+        assertFalse(json, json.contains(",]") || json.contains(",}") || json.contains("[,") || json.contains("{,"));
+        int depth = 0;
+        for (char c : json.toCharArray()) {
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+            assertTrue(json, depth >= 0);
+        }
+        assertEquals(json, 0, depth);
+    }
+
+    @Test
+    public void pagesWalkTheLocksInOrder() {
+        lockFiveTimes();
+
+        String first = token.getLockStatePage(carol, 0, 2);
+        String last = token.getLockStatePage(carol, 4, 2);
+        assertWellFormed(first);
+        assertWellFormed(last);
+        assertEquals(Arrays.asList("5"), jsonValues(first, "total"));
+        assertEquals(Arrays.asList("10", "20"), jsonValues(first, "lockedBalance"));
+        assertEquals(Arrays.asList("50"), jsonValues(last, "lockedBalance"));
+        assertEquals(Arrays.asList("30", "40"), jsonValues(token.getLockStatePage(carol, 2, 2), "lockedBalance"));
+        assertEquals(0, jsonValues(token.getLockStatePage(carol, 5, 2), "lockedBalance").size());
+    }
+
+    @Test
+    public void pageCarriesUserInfoAndVesting() {
+        token.transferLock(carol, amount(10), now() + DAY);
+        token.setTag(carol, "team \"a\"");
+        token.addLockVesting(carol, amount(100), now(), now(), now() + 100, 10);
+
+        String page = token.getLockStatePage(carol, 0, 10);
+        assertWellFormed(page);
+        assertTrue(page, page.contains("\"userInfo\":{\"totalLocked\":false,\"tag\":\"team \\\"a\\\"\"}"));
+        assertTrue(page, page.contains("\"vesting\":[{\"total\":\"100\""));
+    }
+
+    @Test
+    public void unknownAddressHasAnEmptyPage() {
+        assertEquals("{\"total\":0,\"offset\":0,\"locks\":[]}", token.getLockStatePage(carol, 0, 10));
+        assertThrows(RevertException.class, () -> token.getLockStatePage(carol, -1, 10));
+        assertThrows(RevertException.class, () -> token.getLockStatePage(carol, 0, 0));
+    }
+
+    @Test
+    public void fullLockStateHasNoTrailingSeparator() {
+        lockFiveTimes();
+        String state = token.getLockState(carol);
+        assertFalse(state, state.contains(",]"));
+        assertTrue(state, state.startsWith("{locks:["));
+    }
+
+    @Test
+    public void locksWithTheSameTypeAndEndAreMerged() {
+        long end = now() + DAY;
+        token.transferPOCM(carol, amount(10), end);
+        token.transferPOCM(carol, amount(20), end);
+        token.transferLock(carol, amount(5), end);
+
+        String page = token.getLockStatePage(carol, 0, 10);
+        assertEquals(Arrays.asList("2"), jsonValues(page, "total"));
+        assertEquals(Arrays.asList("30", "5"), jsonValues(page, "lockedBalance"));
+        assertEquals(2, events(Token.LockAddedEvent.class).size());
+        assertEquals(new Token.LockUpdatedEvent(carol, 3, 0, end, amount(30)), events(Token.LockUpdatedEvent.class).get(0));
+        assertEquals(0, available(carol));
+    }
+
+    @Test
+    public void mergedLockIsSetAndRemovedAsOne() {
+        long end = now() + DAY;
+        token.transferPOCM(carol, amount(10), end);
+        token.transferPOCM(carol, amount(20), end);
+
+        token.setLock(3, carol, end, amount(12));
+        assertEquals(18, available(carol));
+        assertEquals(1, token.removeLock(3, carol, end));
+        assertEquals(30, available(carol));
+    }
+}
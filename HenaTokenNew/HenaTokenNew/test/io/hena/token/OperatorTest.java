@@ -0,0 +1,93 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.RevertException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class OperatorTest extends TokenTestSupport {
+
+    private final Address operator = address("operator");
+    private final Address carol = address("carol");
+
+    @Before
+    public void clearCalls() {
+        Address.clearCalls();
+    }
+
+    @Test
+    public void operatorEventsAreEmittedOnlyOnChange() {
+        as(alice);
+        token.authorizeOperator(operator);
+        token.authorizeOperator(operator);
+        assertTrue(token.isOperatorFor(operator, alice));
+        assertFalse(token.isOperatorFor(alice, operator));
+        assertEquals(Arrays.asList(new Token.OperatorAuthorizedEvent(alice, operator)),
+                events(Token.OperatorAuthorizedEvent.class));
+
+        token.revokeOperator(operator);
+        token.revokeOperator(operator);
+        assertFalse(token.isOperatorFor(operator, alice));
+        assertEquals(Arrays.asList(new Token.OperatorRevokedEvent(alice, operator)),
+                events(Token.OperatorRevokedEvent.class));
+        assertThrows(RevertException.class, () -> token.authorizeOperator(alice));
+    }
+
+    @Test
+    public void operatorMovesTokensWithoutAnAllowance() {
+        as(alice);
+        token.authorizeOperator(operator);
+        as(operator);
+        token.operatorTransfer(alice, carol, amount(300));
+
+        assertEquals(300, balance(carol));
+        assertEquals(1000 * UNIT - 300, balance(alice));
+        assertEquals(0, token.allowance(alice, operator).longValue());
+        assertEquals(new Token.TransferEvent(alice, carol, amount(300)), events(Token.TransferEvent.class).get(0));
+        assertThrows(RevertException.class, () -> token.operatorTransfer(bob, carol, amount(1)));
+
+        as(alice);
+        token.revokeOperator(operator);
+        as(operator);
+        assertThrows(RevertException.class, () -> token.operatorTransfer(alice, carol, amount(1)));
+    }
+
+    @Test
+    public void operatorTransferRespectsLocksAndTheTransferStop() {
+        token.transferLock(carol, amount(100), now() + DAY);
+        as(carol);
+        token.authorizeOperator(operator);
+        as(operator);
+        assertThrows(RevertException.class, () -> token.operatorTransfer(carol, alice, amount(1)));
+
+        as(alice);
+        token.authorizeOperator(operator);
+        as(owner);
+        token.stopTransfer();
+        as(operator);
+        assertThrows(RevertException.class, () -> token.operatorTransfer(alice, carol, amount(1)));
+    }
+
+    @Test
+    public void approveAndCallApprovesThenNotifiesTheSpender() {
+        Address spender = address("spender");
+        as(alice);
+        token.approveAndCall(spender, amount(25), "order-7");
+
+        assertEquals(25, token.allowance(alice, spender).longValue());
+        assertEquals(new Token.ApprovalEvent(alice, spender, amount(25)), events(Token.ApprovalEvent.class).get(0));
+        assertEquals(Arrays.asList("spender.receiveApproval alice 25 contract order-7"), Address.calls());
+
+        Address.clearCalls();
+        token.approveAndCall(spender, amount(0), null);
+        assertEquals(0, token.allowance(alice, spender).longValue());
+        assertEquals(Arrays.asList("spender.receiveApproval alice 0 contract "), Address.calls());
+    }
+}
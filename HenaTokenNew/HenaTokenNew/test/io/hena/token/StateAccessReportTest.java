@@ -0,0 +1,121 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives the common calls through a {@link StateProbe} and writes the per-method counts of map
+ * reads and writes, BigInteger boundary values and events to target/state-access-report.json.
+ * The assertions pin the per-call cost of the hot paths so a regression shows up as a test failure.
+ */
+public class StateAccessReportTest extends TokenTestSupport {
+
+    private StateProbe probe;
+
+    @Before
+    public void attachProbe() {
+        probe = new StateProbe(token);
+    }
+
+    private void runWorkload() {
+        long start = now();
+        Address spender = address("spender");
+        for (int i = 0; i < 20; i++) {
+            probe.call("transfer", address("h" + i), amount(1000));
+        }
+        for (int i = 0; i < 20; i++) {
+            as(address("h" + i));
+            probe.call("transfer", address("h" + ((i + 1) % 20)), amount(1));
+            probe.call("approve", spender, amount(100));
+        }
+        as(spender);
+        for (int i = 0; i < 20; i++) {
+            probe.call("transferFrom", address("h" + i), address("h" + ((i + 1) % 20)), amount(1));
+        }
+        as(owner);
+        for (int i = 0; i < 20; i++) {
+            probe.call("transferLock", address("h" + i), amount(10), start + 1000 + i);
+            probe.call("transferPOCM", address("h" + i), amount(10), start + 5000);
+            probe.call("addLockVesting", address("h" + i), amount(10), start, start + 100, start + 2000, 100);
+        }
+        for (int i = 0; i < 20; i++) {
+            probe.call("availableBalanceOf", address("h" + i));
+            probe.call("availableBalanceOf", address("h" + i));
+            probe.call("getLockState", address("h" + i));
+            probe.call("setTag", address("h" + i), "team");
+        }
+        probe.call("lockByTag", "team", 0L, 100);
+        probe.call("unlockByTag", "team", 0L, 100);
+        probe.call("burn", amount(UNIT));
+        setTime(start + 2 * DAY);
+        probe.call("sweepExpiredLocks", 1000);
+    }
+
+    @Test
+    public void writesTheReport() throws IOException {
+        runWorkload();
+        File report = new File(System.getProperty("report.dir", "target"), "state-access-report.json");
+        probe.writeReport(report);
+
+        assertTrue(report.length() > 0);
+        assertEquals(40, probe.stats().get("transfer").calls);
+        assertEquals(0, probe.stats().get("getLockState").mapWrites);
+    }
+
+    @Test
+    public void transferBetweenHoldersTouchesOnlyBothAccountsAndTheirCheckpoints() {
+        token.transfer(alice, amount(1));
+        setTime(now() + 1);
+
+        probe.call("transfer", bob, amount(5));
+        StateProbe.CallRecord call = probe.lastCall();
+
+        assertEquals(2, call.writesByField.get("accounts").intValue());
+        assertEquals(4, call.writesByField.get("checkpoints").intValue());
+        assertEquals(0, call.scalarWrites);
+        assertEquals(1, call.events);
+        assertEquals(2, call.bigIntegers);
+        assertTrue(call.writes.contains("accounts[owner]"));
+        assertTrue(call.writes.contains("accounts[bob]"));
+    }
+
+    @Test
+    public void compositeKeysAreNamedByTheirFields() {
+        Address spender = address("spender");
+        as(alice);
+        probe.call("approve", spender, amount(10));
+        assertTrue(probe.lastCall().writes.contains("allowed[alice,spender]"));
+
+        setTime(now() + 1);
+        probe.call("transfer", bob, amount(1));
+        assertTrue(probe.lastCall().writes.contains("checkpoints[alice,1]"));
+        assertTrue(probe.lastCall().writes.contains("checkpoints[bob,1]"));
+    }
+
+    @Test
+    public void transferToNewHolderAppendsToTheHolderIndex() {
+        probe.call("transfer", address("newcomer"), amount(5));
+        StateProbe.CallRecord call = probe.lastCall();
+
+        assertTrue(call.writes.contains("holders.nextSeq"));
+        assertTrue(call.writes.contains("accounts" + StateProbe.SIZE));
+    }
+
+    @Test
+    public void availableBalanceOfWritesOnlyWhenTheLockCacheIsRebuilt() {
+        token.transferLock(alice, amount(10), now() + 1000);
+
+        probe.call("availableBalanceOf", alice);
+        assertEquals(1, probe.lastCall().mapWrites);
+        probe.call("availableBalanceOf", alice);
+        assertEquals(0, probe.lastCall().mapWrites);
+        assertEquals(1, probe.lastCall().mapReads);
+    }
+}
@@ -0,0 +1,543 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Event;
+import io.nuls.contract.sdk.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Records how contract calls touch contract state.
+ * <p>
+ * Every map and set held by a contract field, or by an object in a contract field such as the
+ * holder index, is swapped for a recording copy. Map keys and set elements are the state slots,
+ * named like {@code accounts[alice]}. Objects read from a map and changed in place, like an
+ * Account whose balance moves, are caught by fingerprinting them on the first read of a call and
+ * again at its end. Scalar fields are compared before and after each call; their reads cannot be
+ * observed. Slots ending in {@code #size} stand for the element count of a collection.
+ * <p>
+ * BigInteger values are counted where they cross the contract boundary: arguments, return values
+ * and event fields. All arithmetic inside the contract is done in long.
+ * <p>
+ * The stand-in SDK does not roll back reverted calls, so a reverted call keeps whatever it changed.
+ */
+public class StateProbe {
+
+    public static final String SIZE = "#size";
+
+    /**
+     * Everything one call read and wrote.
+     */
+    public static class CallRecord {
+        public final String method;
+        public final Set<String> reads = new LinkedHashSet<String>();
+        public final Set<String> writes = new LinkedHashSet<String>();
+        public final Map<String, Integer> readsByField = new TreeMap<String, Integer>();
+        public final Map<String, Integer> writesByField = new TreeMap<String, Integer>();
+        public int mapReads;
+        public int mapWrites;
+        public int scalarWrites;
+        public int bigIntegers;
+        public int events;
+        public boolean reverted;
+
+        CallRecord(String method) {
+            this.method = method;
+        }
+    }
+
+    /**
+     * Totals over all calls of one method.
+     */
+    public static class MethodStats {
+        public int calls;
+        public int reverted;
+        public long mapReads;
+        public long mapWrites;
+        public long scalarWrites;
+        public long slotsRead;
+        public long slotsWritten;
+        public long bigIntegers;
+        public long events;
+        public int maxMapReads;
+        public int maxMapWrites;
+        public final Map<String, Long> readsByField = new TreeMap<String, Long>();
+        public final Map<String, Long> writesByField = new TreeMap<String, Long>();
+
+        void add(CallRecord record) {
+            calls++;
+            if (record.reverted) {
+                reverted++;
+            }
+            mapReads += record.mapReads;
+            mapWrites += record.mapWrites;
+            scalarWrites += record.scalarWrites;
+            slotsRead += record.reads.size();
+            slotsWritten += record.writes.size();
+            bigIntegers += record.bigIntegers;
+            events += record.events;
+            maxMapReads = Math.max(maxMapReads, record.mapReads);
+            maxMapWrites = Math.max(maxMapWrites, record.mapWrites);
+            merge(readsByField, record.readsByField);
+            merge(writesByField, record.writesByField);
+        }
+
+        private static void merge(Map<String, Long> total, Map<String, Integer> call) {
+            for (Map.Entry<String, Integer> entry : call.entrySet()) {
+                Long current = total.get(entry.getKey());
+                total.put(entry.getKey(), (current == null ? 0 : current) + entry.getValue());
+            }
+        }
+    }
+
+    private final Object contract;
+    private final Map<String, ScalarField> scalars = new LinkedHashMap<String, ScalarField>();
+    private final Map<String, Long> touched = new HashMap<String, Long>();
+    private final Map<String, Recording> touchedOwners = new HashMap<String, Recording>();
+    private final Map<String, Object> touchedKeys = new HashMap<String, Object>();
+    private final Map<String, MethodStats> stats = new TreeMap<String, MethodStats>();
+    private final List<CallRecord> history = new ArrayList<CallRecord>();
+    private CallRecord current;
+    private boolean keepHistory;
+
+    public StateProbe(Object contract) {
+        this.contract = contract;
+        try {
+            instrument(contract, "", true);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Keeps every CallRecord, not only the per-method totals.
+     */
+    public StateProbe keepHistory(boolean keep) {
+        this.keepHistory = keep;
+        return this;
+    }
+
+    public List<CallRecord> history() {
+        return history;
+    }
+
+    public Map<String, MethodStats> stats() {
+        return stats;
+    }
+
+    /**
+     * Names of the scalar slots, which every call may read without the probe noticing.
+     */
+    public Set<String> scalarSlots() {
+        return scalars.keySet();
+    }
+
+    public CallRecord lastCall() {
+        return current;
+    }
+
+    /**
+     * Calls the public contract method with the given name and argument count.
+     */
+    public Object call(String method, Object... args) {
+        Method target = findMethod(method, args.length);
+        CallRecord record = new CallRecord(method);
+        current = record;
+        touched.clear();
+        touchedOwners.clear();
+        touchedKeys.clear();
+        Map<String, Object> before = readScalars();
+        int eventsBefore = Utils.events().size();
+        countBigIntegers(record, args);
+        try {
+            Object result = target.invoke(contract, args);
+            countBigIntegers(record, result);
+            return result;
+        } catch (InvocationTargetException e) {
+            record.reverted = true;
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            finishCall(record, before, eventsBefore);
+        }
+    }
+
+    private void finishCall(CallRecord record, Map<String, Object> before, int eventsBefore) {
+        for (Map.Entry<String, Long> entry : touched.entrySet()) {
+            String slot = entry.getKey();
+            Object value = touchedOwners.get(slot).peek(touchedKeys.get(slot));
+            if (!record.writes.contains(slot) && Fingerprint.of(value) != entry.getValue()) {
+                write(touchedOwners.get(slot).name(), slot);
+            }
+        }
+        Map<String, Object> after = readScalars();
+        for (Map.Entry<String, Object> entry : before.entrySet()) {
+            Object now = after.get(entry.getKey());
+            if (now == null ? entry.getValue() != null : !now.equals(entry.getValue())) {
+                record.scalarWrites++;
+                record.writes.add(entry.getKey());
+                increment(record.writesByField, entry.getKey());
+            }
+        }
+        List<Event> events = Utils.events();
+        for (int i = eventsBefore; i < events.size(); i++) {
+            record.events++;
+            countEventFields(record, events.get(i));
+        }
+        MethodStats methodStats = stats.get(record.method);
+        if (methodStats == null) {
+            methodStats = new MethodStats();
+            stats.put(record.method, methodStats);
+        }
+        methodStats.add(record);
+        if (keepHistory) {
+            history.add(record);
+        }
+    }
+
+    private Method findMethod(String name, int argCount) {
+        for (Method method : contract.getClass().getMethods()) {
+            if (method.getName().equals(name) && method.getParameterTypes().length == argCount) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("No method " + name + " with " + argCount + " arguments");
+    }
+
+    // Replaces collections in the fields of target by recording copies and registers its scalar fields.
+    private void instrument(Object target, String prefix, boolean descend) throws IllegalAccessException {
+        for (Class<?> type = target.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                field.setAccessible(true);
+                String name = prefix + field.getName();
+                Object value = field.get(target);
+                if (value instanceof HashMap) {
+                    field.set(target, new RecordingMap<Object, Object>(this, name, (HashMap<?, ?>) value));
+                } else if (value instanceof HashSet) {
+                    field.set(target, new RecordingSet<Object>(this, name, (HashSet<?>) value));
+                } else if (Fingerprint.isValue(field.getType())) {
+                    if (!Modifier.isFinal(modifiers)) {
+                        scalars.put(name, new ScalarField(target, field));
+                    }
+                } else if (value != null && descend) {
+                    instrument(value, name + ".", false);
+                }
+            }
+        }
+    }
+
+    private Map<String, Object> readScalars() {
+        Map<String, Object> values = new HashMap<String, Object>();
+        for (Map.Entry<String, ScalarField> entry : scalars.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().get());
+        }
+        return values;
+    }
+
+    void read(String field, String slot) {
+        if (current == null) {
+            return;
+        }
+        current.mapReads++;
+        current.reads.add(slot);
+        increment(current.readsByField, field);
+    }
+
+    void readValue(Recording owner, Object key, Object value) {
+        String slot = slotName(owner.name(), key);
+        read(owner.name(), slot);
+        if (current != null && !touched.containsKey(slot)) {
+            touched.put(slot, Fingerprint.of(value));
+            touchedOwners.put(slot, owner);
+            touchedKeys.put(slot, key);
+        }
+    }
+
+    /**
+     * Slot of a map key or set element, like accounts[alice] or allowed[alice,spender]. Keys without a
+     * readable toString of their own, such as the contract's composite keys, are spelled out from their
+     * fields, so two different keys never share a slot.
+     */
+    static String slotName(String name, Object key) {
+        return name + "[" + keyName(key) + "]";
+    }
+
+    private static String keyName(Object key) {
+        if (key == null || Fingerprint.isValue(key.getClass())) {
+            return String.valueOf(key);
+        }
+        StringBuilder result = new StringBuilder();
+        try {
+            for (Field field : Fingerprint.fields(key.getClass())) {
+                if (result.length() > 0) {
+                    result.append(',');
+                }
+                result.append(keyName(field.get(key)));
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        return result.toString();
+    }
+
+    void write(String field, String slot) {
+        if (current == null) {
+            return;
+        }
+        current.mapWrites++;
+        current.writes.add(slot);
+        increment(current.writesByField, field);
+    }
+
+    private static void increment(Map<String, Integer> counts, String key) {
+        Integer count = counts.get(key);
+        counts.put(key, count == null ? 1 : count + 1);
+    }
+
+    private static void countBigIntegers(CallRecord record, Object value) {
+        if (value instanceof BigInteger) {
+            record.bigIntegers++;
+        } else if (value instanceof Object[]) {
+            for (Object element : (Object[]) value) {
+                countBigIntegers(record, element);
+            }
+        }
+    }
+
+    private static void countEventFields(CallRecord record, Event event) {
+        for (Field field : event.getClass().getDeclaredFields()) {
+            if (field.getType() == BigInteger.class) {
+                record.bigIntegers++;
+            }
+        }
+    }
+
+    /**
+     * Per-method totals as JSON.
+     */
+    public String report() {
+        StringBuilder json = new StringBuilder("{\n  \"methods\": {");
+        String separator = "\n";
+        for (Map.Entry<String, MethodStats> entry : stats.entrySet()) {
+            MethodStats s = entry.getValue();
+            json.append(separator).append("    \"").append(entry.getKey()).append("\": {")
+                    .append("\"calls\": ").append(s.calls)
+                    .append(", \"reverted\": ").append(s.reverted)
+                    .append(", \"mapReadsPerCall\": ").append(perCall(s.mapReads, s.calls))
+                    .append(", \"mapWritesPerCall\": ").append(perCall(s.mapWrites, s.calls))
+                    .append(", \"scalarWritesPerCall\": ").append(perCall(s.scalarWrites, s.calls))
+                    .append(", \"maxMapReads\": ").append(s.maxMapReads)
+                    .append(", \"maxMapWrites\": ").append(s.maxMapWrites)
+                    .append(", \"slotsReadPerCall\": ").append(perCall(s.slotsRead, s.calls))
+                    .append(", \"slotsWrittenPerCall\": ").append(perCall(s.slotsWritten, s.calls))
+                    .append(", \"bigIntegersPerCall\": ").append(perCall(s.bigIntegers, s.calls))
+                    .append(", \"eventsPerCall\": ").append(perCall(s.events, s.calls))
+                    .append(", \"readsByField\": ").append(toJson(s.readsByField))
+                    .append(", \"writesByField\": ").append(toJson(s.writesByField))
+                    .append("}");
+            separator = ",\n";
+        }
+        return json.append("\n  }\n}\n").toString();
+    }
+
+    public void writeReport(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8);
+        try {
+            writer.write(report());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String perCall(long total, int calls) {
+        return calls == 0 ? "0" : String.valueOf(Math.round(total * 100.0 / calls) / 100.0);
+    }
+
+    private static String toJson(Map<String, Long> counts) {
+        StringBuilder json = new StringBuilder("{");
+        String separator = "";
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\": ").append(entry.getValue());
+            separator = ", ";
+        }
+        return json.append("}").toString();
+    }
+
+    private static class ScalarField {
+        private final Object target;
+        private final Field field;
+
+        ScalarField(Object target, Field field) {
+            this.target = target;
+            this.field = field;
+        }
+
+        Object get() {
+            try {
+                return field.get(target);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    interface Recording {
+        String name();
+
+        Object peek(Object key);
+    }
+
+    static class RecordingMap<K, V> extends HashMap<K, V> implements Recording {
+        private final StateProbe probe;
+        private final String name;
+
+        @SuppressWarnings("unchecked")
+        RecordingMap(StateProbe probe, String name, HashMap<?, ?> contents) {
+            this.probe = probe;
+            this.name = name;
+            super.putAll((Map<K, V>) contents);
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Object peek(Object key) {
+            return super.get(key);
+        }
+
+        private String slot(Object key) {
+            return slotName(name, key);
+        }
+
+        @Override
+        public V get(Object key) {
+            V value = super.get(key);
+            probe.readValue(this, key, value);
+            return value;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            probe.read(name, slot(key));
+            return super.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            probe.read(name, name + SIZE);
+            return super.size();
+        }
+
+        @Override
+        public V put(K key, V value) {
+            if (!super.containsKey(key)) {
+                probe.write(name, name + SIZE);
+            }
+            probe.write(name, slot(key));
+            return super.put(key, value);
+        }
+
+        @Override
+        public V remove(Object key) {
+            if (!super.containsKey(key)) {
+                probe.read(name, slot(key));
+                return null;
+            }
+            probe.write(name, name + SIZE);
+            probe.write(name, slot(key));
+            return super.remove(key);
+        }
+    }
+
+    static class RecordingSet<E> extends HashSet<E> implements Recording {
+        private final StateProbe probe;
+        private final String name;
+
+        @SuppressWarnings("unchecked")
+        RecordingSet(StateProbe probe, String name, HashSet<?> contents) {
+            this.probe = probe;
+            this.name = name;
+            for (Object element : contents) {
+                super.add((E) element);
+            }
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Object peek(Object key) {
+            return super.contains(key);
+        }
+
+        private String slot(Object element) {
+            return slotName(name, element);
+        }
+
+        @Override
+        public boolean contains(Object element) {
+            probe.read(name, slot(element));
+            return super.contains(element);
+        }
+
+        @Override
+        public int size() {
+            probe.read(name, name + SIZE);
+            return super.size();
+        }
+
+        @Override
+        public boolean add(E element) {
+            if (super.contains(element)) {
+                probe.read(name, slot(element));
+                return false;
+            }
+            probe.write(name, name + SIZE);
+            probe.write(name, slot(element));
+            return super.add(element);
+        }
+
+        @Override
+        public boolean remove(Object element) {
+            if (!super.contains(element)) {
+                probe.read(name, slot(element));
+                return false;
+            }
+            probe.write(name, name + SIZE);
+            probe.write(name, slot(element));
+            return super.remove(element);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SweepExpiredLocksTest extends TokenTestSupport {
+
+    private final Address carol = address("carol");
+
+    @Test
+    public void nothingToSweepReturnsMinusOne() {
+        assertEquals(-1, token.sweepExpiredLocks(10));
+    }
+
+    @Test
+    public void locksOfTheCurrentDayWaitUntilTheDayIsOver() {
+        long day = now() / DAY;
+        token.transferLock(carol, amount(1), now() + 100);
+        setTime(now() + 200);
+
+        assertEquals(day, token.sweepExpiredLocks(10));
+        setTime((day + 1) * DAY);
+        assertEquals(-1, token.sweepExpiredLocks(10));
+    }
+
+    @Test
+    public void removesAtMostMaxEntriesAndResumesWithinAnAddress() {
+        long day = now() / DAY;
+        for (int i = 0; i < 5; i++) {
+            token.transferLock(carol, amount(1), now() + 100 + i);
+        }
+        setTime((day + 1) * DAY);
+
+        assertEquals(day, token.sweepExpiredLocks(2));
+        assertEquals(day, token.sweepExpiredLocks(2));
+        assertEquals(-1, token.sweepExpiredLocks(2));
+    }
+
+    @Test
+    public void cursorMovesAcrossAddressesAndDays() {
+        long day = now() / DAY;
+        token.transferLock(address("d1"), amount(1), now() + 100);
+        token.transferLock(address("d2"), amount(1), now() + 100);
+        token.transferLock(address("d3"), amount(1), (day + 2) * DAY + 100);
+        setTime((day + 3) * DAY);
+
+        assertEquals(day, token.sweepExpiredLocks(1));
+        // The second address of the first day, then the empty day in between.
+        assertEquals(day + 2, token.sweepExpiredLocks(2));
+        assertEquals(-1, token.sweepExpiredLocks(1));
+    }
+
+    @Test
+    public void vestingEntriesCountAgainstTheBudget() {
+        long day = now() / DAY;
+        token.transferLock(carol, amount(1), now() + 100);
+        token.addLockVesting(carol, amount(1), now(), now(), now() + 100, 10);
+        setTime((day + 1) * DAY);
+
+        assertEquals(day, token.sweepExpiredLocks(1));
+        assertEquals(-1, token.sweepExpiredLocks(1));
+    }
+
+    @Test
+    public void locksThatHaveNotEndedSurviveTheSweep() {
+        long day = now() / DAY;
+        token.transferLock(carol, amount(10), now() + 100);
+        token.transferLock(carol, amount(20), (day + 5) * DAY);
+        setTime((day + 1) * DAY);
+
+        assertEquals(day + 1, token.sweepExpiredLocks(100));
+        assertEquals(10, available(carol));
+    }
+}
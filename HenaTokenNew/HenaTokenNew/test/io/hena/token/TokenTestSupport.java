@@ -0,0 +1,87 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.Block;
+import io.nuls.contract.sdk.Event;
+import io.nuls.contract.sdk.Msg;
+import io.nuls.contract.sdk.Utils;
+import org.junit.Before;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Deploys a fresh token on the stand-in SDK before every test. The owner also acts as manager
+ * and POCM address; alice, bob and the owner receive genesis balances.
+ */
+public abstract class TokenTestSupport {
+
+    protected static final long UNIT = 100000000L;
+    protected static final long DAY = 86400;
+
+    protected final Address owner = address("owner");
+    protected final Address alice = address("alice");
+    protected final Address bob = address("bob");
+
+    protected HenaToken token;
+
+    @Before
+    public void deploy() {
+        Utils.clearEvents();
+        Address.clearCalls();
+        setTime(100 * DAY);
+        as(owner);
+        token = new HenaToken("Hena", "HENA", owner, owner, new String[]{"alice", "bob", "owner"}, new long[]{1000, 1000, 1000000});
+        Utils.clearEvents();
+    }
+
+    protected static Address address(String name) {
+        return new Address(name);
+    }
+
+    protected static BigInteger amount(long value) {
+        return BigInteger.valueOf(value);
+    }
+
+    protected static void setTime(long seconds) {
+        Block.setTimestamp(seconds * 1000);
+    }
+
+    protected static long now() {
+        return Block.timestamp() / 1000;
+    }
+
+    protected static void as(Address sender) {
+        Msg.setSender(sender);
+    }
+
+    protected long available(Address address) {
+        return token.availableBalanceOf(address).longValue();
+    }
+
+    protected long balance(Address address) {
+        return token.balanceOf(address).longValue();
+    }
+
+    protected static <T extends Event> List<T> events(Class<T> type) {
+        List<T> result = new ArrayList<T>();
+        for (Event event : Utils.events()) {
+            if (type.isInstance(event)) {
+                result.add(type.cast(event));
+            }
+        }
+        return result;
+    }
+
+    protected static List<String> jsonValues(String json, String key) {
+        List<String> result = new ArrayList<String>();
+        Matcher matcher = Pattern.compile("\"" + key + "\":\"?(-?[\\w]+)\"?").matcher(json);
+        while (matcher.find()) {
+            result.add(matcher.group(1));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,565 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.Block;
+import io.nuls.contract.sdk.Msg;
+import io.nuls.contract.sdk.RevertException;
+import io.nuls.contract.sdk.Utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Replays contract calls block by block on a simulated clock and reports calls per second, p50 and
+ * p99 latency per method, and samples of the state size as the chain ages.
+ * <p>
+ * The calls come either from a seeded random mix or from a trace file (trace=path) with one call per line:
+ * <pre>
+ * &lt;block&gt; &lt;time in seconds&gt; &lt;method&gt; &lt;sender&gt; [argument ...]
+ * </pre>
+ * Addresses are plain names, amounts are in the smallest unit and array arguments are comma separated,
+ * for example {@code 12 8640600 addLockNormal owner u7 8640600 8726400 20}. Lines starting with # are skipped.
+ * A synthetic run can write its own calls in this format with record=path, so it can be replayed later.
+ * <p>
+ * Either way the token is deployed with the owner holding the genesis supply and acting as manager and
+ * POCM address, and holders u0, u1, ... are funded and approve "spender" first (holders=0 skips that).
+ * In the synthetic mix every block advances the clock by blockSeconds and carries callsPerBlock calls,
+ * followed by one sweepExpiredLocks call. Only the contract calls are timed, not the workload
+ * generation or the argument parsing.
+ * Run it with {@code mvn -Pbench test-compile exec:exec@trace -Dtrace.args="holders=100000 calls=1000000"}.
+ */
+public class TraceSimulator {
+
+    public static final String TRANSFER = "transfer";
+    public static final String TRANSFER_FROM = "transferFrom";
+    public static final String APPROVE = "approve";
+    public static final String AVAILABLE_BALANCE_OF = "availableBalanceOf";
+    public static final String GET_LOCK_STATE = "getLockState";
+    public static final String TRANSFER_POCM = "transferPOCM";
+    public static final String TRANSFER_LOCK = "transferLock";
+    public static final String ADD_LOCK_NORMAL = "addLockNormal";
+    public static final String SWEEP = "sweepExpiredLocks";
+
+    private static final long DAY = 86400;
+    private static final long UNIT = 100000000L;
+
+    public static class Config {
+        public int holders = 1000;
+        public int calls = 100000;
+        public int callsPerBlock = 200;
+        public long blockSeconds = 600;
+        public int sampleEveryBlocks = 50;
+        public double newHolderRatio = 0.05;
+        public int spenders = 100;
+        public int sweepBudget = 100;
+        public long seed = 1;
+        public File trace;
+        public File record;
+        public final Map<String, Integer> mix = new LinkedHashMap<String, Integer>();
+
+        public Config() {
+            mix.put(TRANSFER, 35);
+            mix.put(TRANSFER_FROM, 10);
+            mix.put(APPROVE, 5);
+            mix.put(AVAILABLE_BALANCE_OF, 25);
+            mix.put(GET_LOCK_STATE, 10);
+            mix.put(TRANSFER_POCM, 8);
+            mix.put(TRANSFER_LOCK, 4);
+            mix.put(ADD_LOCK_NORMAL, 3);
+        }
+
+        /**
+         * Applies key=value arguments; mix entries are given as mix.transfer=40.
+         */
+        public Config parse(String[] args) {
+            for (String arg : args) {
+                int split = arg.indexOf('=');
+                if (split < 0) {
+                    throw new IllegalArgumentException("Expected key=value: " + arg);
+                }
+                String key = arg.substring(0, split);
+                String value = arg.substring(split + 1);
+                if (key.startsWith("mix.")) {
+                    mix.put(key.substring(4), Integer.parseInt(value));
+                } else if (key.equals("holders")) {
+                    holders = Integer.parseInt(value);
+                } else if (key.equals("calls")) {
+                    calls = Integer.parseInt(value);
+                } else if (key.equals("callsPerBlock")) {
+                    callsPerBlock = Integer.parseInt(value);
+                } else if (key.equals("blockSeconds")) {
+                    blockSeconds = Long.parseLong(value);
+                } else if (key.equals("sampleEveryBlocks")) {
+                    sampleEveryBlocks = Integer.parseInt(value);
+                } else if (key.equals("newHolderRatio")) {
+                    newHolderRatio = Double.parseDouble(value);
+                } else if (key.equals("spenders")) {
+                    spenders = Integer.parseInt(value);
+                } else if (key.equals("sweepBudget")) {
+                    sweepBudget = Integer.parseInt(value);
+                } else if (key.equals("seed")) {
+                    seed = Long.parseLong(value);
+                } else if (key.equals("trace")) {
+                    trace = new File(value);
+                } else if (key.equals("record")) {
+                    record = new File(value);
+                } else {
+                    throw new IllegalArgumentException("Unknown option " + key);
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Latencies of one method in nanoseconds.
+     */
+    public static class MethodTimes {
+        private long[] nanos = new long[1024];
+        private int size;
+        public int reverted;
+
+        void add(long value) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = value;
+        }
+
+        public int calls() {
+            return size;
+        }
+
+        public long totalNanos() {
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                total += nanos[i];
+            }
+            return total;
+        }
+
+        public long percentile(double p) {
+            if (size == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(p / 100 * size) - 1;
+            return sorted[Math.max(0, Math.min(size - 1, index))];
+        }
+    }
+
+    /**
+     * State size at one point of the simulation.
+     */
+    public static class Sample {
+        public long block;
+        public long time;
+        public long calls;
+        public int accounts;
+        public int holders;
+        public int checkpoints;
+        public int allowances;
+        public int lockEntries;
+        public int expiryEntries;
+    }
+
+    private final Config config;
+    private final Random random;
+    private final Map<String, MethodTimes> times = new LinkedHashMap<String, MethodTimes>();
+    private final Map<String, Method> methods = new HashMap<String, Method>();
+    private final List<Sample> samples = new ArrayList<Sample>();
+    private final List<String> population = new ArrayList<String>();
+    private HenaToken token;
+    private Writer recorder;
+    private long block;
+    private long time;
+    private long blocksSinceSample;
+    private long callsDone;
+    private long measuredNanos;
+    private int newHolders;
+
+    public TraceSimulator(Config config) {
+        this.config = config;
+        this.random = new Random(config.seed);
+        if (config.trace == null) {
+            for (String method : config.mix.keySet()) {
+                times.put(method, new MethodTimes());
+            }
+            times.put(SWEEP, new MethodTimes());
+        }
+    }
+
+    public Map<String, MethodTimes> times() {
+        return times;
+    }
+
+    public List<Sample> samples() {
+        return samples;
+    }
+
+    public HenaToken token() {
+        return token;
+    }
+
+    public long measuredNanos() {
+        return measuredNanos;
+    }
+
+    public void run() throws IOException {
+        setUp();
+        sample();
+        if (config.record != null) {
+            config.record.getAbsoluteFile().getParentFile().mkdirs();
+            recorder = new OutputStreamWriter(Files.newOutputStream(config.record.toPath()), StandardCharsets.UTF_8);
+        }
+        try {
+            if (config.trace != null) {
+                replay(config.trace);
+            } else {
+                simulate();
+            }
+        } finally {
+            if (recorder != null) {
+                recorder.close();
+                recorder = null;
+            }
+        }
+        sample();
+    }
+
+    private void simulate() throws IOException {
+        int totalWeight = 0;
+        for (int weight : config.mix.values()) {
+            totalWeight += weight;
+        }
+        while (callsDone < config.calls) {
+            setBlock(block + 1, time + config.blockSeconds);
+            for (int i = 0; i < config.callsPerBlock && callsDone < config.calls; i++) {
+                call(next(pick(totalWeight)));
+            }
+            call(new String[]{SWEEP, "owner", String.valueOf(config.sweepBudget)});
+        }
+    }
+
+    private void replay(File trace) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(trace.toPath(), StandardCharsets.UTF_8);
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length < 4) {
+                    throw new IOException(trace + ":" + lineNumber + ": expected <block> <time> <method> <sender> [argument ...]");
+                }
+                long lineBlock = Long.parseLong(fields[0]);
+                if (lineBlock != block) {
+                    setBlock(lineBlock, Long.parseLong(fields[1]));
+                }
+                call(Arrays.copyOfRange(fields, 2, fields.length));
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void setUp() {
+        time = 100 * DAY;
+        block = 1;
+        Block.setTimestamp(time * 1000);
+        Block.setNumber(block);
+        Msg.setSender(new Address("owner"));
+        Utils.clearEvents();
+        token = new HenaToken("Hena", "HENA", new Address("owner"), new Address("owner"), new String[]{"owner"}, new long[]{900000000L});
+        BigInteger holderAmount = BigInteger.valueOf(100 * UNIT);
+        BigInteger allowance = BigInteger.valueOf(Long.MAX_VALUE / 2);
+        Address spender = new Address("spender");
+        for (int i = 0; i < config.holders; i++) {
+            Address holder = new Address("u" + i);
+            population.add(holder.toString());
+            Msg.setSender(new Address("owner"));
+            token.transfer(holder, holderAmount);
+            Msg.setSender(holder);
+            token.approve(spender, allowance);
+            if (i % 10000 == 0) {
+                Utils.clearEvents();
+            }
+        }
+        Utils.clearEvents();
+    }
+
+    // Moves the clock; samples the state every sampleEveryBlocks blocks.
+    private void setBlock(long number, long seconds) {
+        if (++blocksSinceSample == config.sampleEveryBlocks) {
+            sample();
+            blocksSinceSample = 0;
+        }
+        block = number;
+        time = seconds;
+        Block.setNumber(block);
+        Block.setTimestamp(time * 1000);
+        Utils.clearEvents();
+    }
+
+    private String pick(int totalWeight) {
+        int roll = random.nextInt(totalWeight);
+        for (Map.Entry<String, Integer> entry : config.mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private String someHolder() {
+        return population.get(random.nextInt(population.size()));
+    }
+
+    private String recipient() {
+        if (random.nextDouble() < config.newHolderRatio) {
+            String holder = "n" + newHolders++;
+            population.add(holder);
+            return holder;
+        }
+        return someHolder();
+    }
+
+    // The next synthetic call as method, sender and arguments.
+    private String[] next(String method) {
+        String value = String.valueOf(1 + random.nextInt(100));
+        String lockTime = String.valueOf((time / DAY + 1 + random.nextInt(30)) * DAY);
+        if (method.equals(TRANSFER)) {
+            return new String[]{method, someHolder(), recipient(), value};
+        } else if (method.equals(TRANSFER_FROM)) {
+            return new String[]{method, "spender", someHolder(), recipient(), value};
+        } else if (method.equals(APPROVE)) {
+            return new String[]{method, someHolder(), "s" + random.nextInt(config.spenders), value};
+        } else if (method.equals(AVAILABLE_BALANCE_OF) || method.equals(GET_LOCK_STATE)) {
+            return new String[]{method, "owner", someHolder()};
+        } else if (method.equals(TRANSFER_POCM) || method.equals(TRANSFER_LOCK)) {
+            return new String[]{method, "owner", recipient(), value, lockTime};
+        } else if (method.equals(ADD_LOCK_NORMAL)) {
+            return new String[]{method, "owner", someHolder(), String.valueOf(time), lockTime, String.valueOf(1 + random.nextInt(20))};
+        }
+        throw new IllegalArgumentException("Unknown method " + method);
+    }
+
+    // call is method, sender and the arguments as text.
+    private void call(String[] call) throws IOException {
+        if (recorder != null) {
+            recorder.write(block + " " + time);
+            for (String field : call) {
+                recorder.write(' ');
+                recorder.write(field);
+            }
+            recorder.write('\n');
+        }
+        Method method = method(call[0], call.length - 2);
+        Class<?>[] types = method.getParameterTypes();
+        Object[] args = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            args[i] = argument(types[i], call[i + 2]);
+        }
+        Msg.setSender(new Address(call[1]));
+        MethodTimes methodTimes = times.get(call[0]);
+        if (methodTimes == null) {
+            methodTimes = new MethodTimes();
+            times.put(call[0], methodTimes);
+        }
+        long start = System.nanoTime();
+        try {
+            method.invoke(token, args);
+        } catch (InvocationTargetException e) {
+            if (!(e.getCause() instanceof RevertException)) {
+                throw new IllegalStateException(call[0] + " failed", e.getCause());
+            }
+            methodTimes.reverted++;
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        long elapsed = System.nanoTime() - start;
+        methodTimes.add(elapsed);
+        measuredNanos += elapsed;
+        if (!call[0].equals(SWEEP)) {
+            callsDone++;
+        }
+    }
+
+    private Method method(String name, int arguments) {
+        String key = name + "/" + arguments;
+        Method method = methods.get(key);
+        if (method == null) {
+            for (Method candidate : HenaToken.class.getMethods()) {
+                if (candidate.getName().equals(name) && candidate.getParameterTypes().length == arguments) {
+                    method = candidate;
+                }
+            }
+            if (method == null) {
+                throw new IllegalArgumentException("No method " + name + " with " + arguments + " arguments");
+            }
+            methods.put(key, method);
+        }
+        return method;
+    }
+
+    private static Object argument(Class<?> type, String text) {
+        if (type.isArray()) {
+            String[] items = text.split(",");
+            Object array = Array.newInstance(type.getComponentType(), items.length);
+            for (int i = 0; i < items.length; i++) {
+                Array.set(array, i, argument(type.getComponentType(), items[i]));
+            }
+            return array;
+        }
+        if (type == Address.class) {
+            return new Address(text);
+        } else if (type == BigInteger.class) {
+            return new BigInteger(text);
+        } else if (type == long.class) {
+            return Long.parseLong(text);
+        } else if (type == int.class) {
+            return Integer.parseInt(text);
+        } else if (type == boolean.class) {
+            return Boolean.parseBoolean(text);
+        } else if (type == String.class) {
+            return text;
+        }
+        throw new IllegalArgumentException("Unsupported argument type " + type);
+    }
+
+    private void sample() {
+        Sample sample = new Sample();
+        sample.block = block;
+        sample.time = time;
+        sample.calls = callsDone;
+        sample.holders = token.holderCount();
+        Map<?, ?> accounts = (Map<?, ?>) field(token, "accounts");
+        sample.accounts = accounts.size();
+        sample.checkpoints = ((Map<?, ?>) field(token, "checkpoints")).size();
+        sample.allowances = ((Map<?, ?>) field(token, "allowed")).size();
+        for (Object account : accounts.values()) {
+            sample.lockEntries += scheduleSize(field(account, "locks")) + scheduleSize(field(account, "vesting"));
+        }
+        for (Object bucket : ((Map<?, ?>) field(token, "expiryBuckets")).values()) {
+            sample.expiryEntries += ((Collection<?>) bucket).size();
+        }
+        samples.add(sample);
+    }
+
+    private static int scheduleSize(Object schedule) {
+        return schedule == null ? 0 : (Integer) field(schedule, "size");
+    }
+
+    private static Object field(Object target, String name) {
+        for (Class<?> type = target.getClass(); type != Object.class; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return field.get(target);
+            } catch (NoSuchFieldException e) {
+                // Declared further up.
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException("No field " + name + " on " + target.getClass());
+    }
+
+    public String report() {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"config\": {\"holders\": ").append(config.holders);
+        if (config.trace != null) {
+            json.append(", \"trace\": \"").append(config.trace.getPath().replace("\\", "/")).append('"');
+        } else {
+            json.append(", \"calls\": ").append(config.calls)
+                    .append(", \"callsPerBlock\": ").append(config.callsPerBlock)
+                    .append(", \"blockSeconds\": ").append(config.blockSeconds)
+                    .append(", \"newHolderRatio\": ").append(config.newHolderRatio)
+                    .append(", \"spenders\": ").append(config.spenders)
+                    .append(", \"sweepBudget\": ").append(config.sweepBudget)
+                    .append(", \"seed\": ").append(config.seed);
+        }
+        json.append("},\n");
+        long allCalls = 0;
+        for (MethodTimes methodTimes : times.values()) {
+            allCalls += methodTimes.calls();
+        }
+        json.append("  \"callsPerSecond\": ").append(perSecond(allCalls, measuredNanos)).append(",\n");
+        json.append("  \"methods\": {");
+        String separator = "\n";
+        for (Map.Entry<String, MethodTimes> entry : times.entrySet()) {
+            MethodTimes t = entry.getValue();
+            json.append(separator).append("    \"").append(entry.getKey()).append("\": {")
+                    .append("\"calls\": ").append(t.calls())
+                    .append(", \"reverted\": ").append(t.reverted)
+                    .append(", \"callsPerSecond\": ").append(perSecond(t.calls(), t.totalNanos()))
+                    .append(", \"p50Nanos\": ").append(t.percentile(50))
+                    .append(", \"p99Nanos\": ").append(t.percentile(99))
+                    .append("}");
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"stateSize\": [");
+        separator = "\n";
+        for (Sample s : samples) {
+            json.append(separator).append("    {\"block\": ").append(s.block)
+                    .append(", \"time\": ").append(s.time)
+                    .append(", \"calls\": ").append(s.calls)
+                    .append(", \"accounts\": ").append(s.accounts)
+                    .append(", \"holders\": ").append(s.holders)
+                    .append(", \"checkpoints\": ").append(s.checkpoints)
+                    .append(", \"allowances\": ").append(s.allowances)
+                    .append(", \"lockEntries\": ").append(s.lockEntries)
+                    .append(", \"expiryEntries\": ").append(s.expiryEntries)
+                    .append("}");
+            separator = ",\n";
+        }
+        return json.append("\n  ]\n}\n").toString();
+    }
+
+    private static long perSecond(long calls, long nanos) {
+        return nanos == 0 ? 0 : Math.round(calls * 1e9 / nanos);
+    }
+
+    public void writeReport(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8);
+        try {
+            writer.write(report());
+        } finally {
+            writer.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        TraceSimulator simulator = new TraceSimulator(new Config().parse(args));
+        simulator.run();
+        File report = new File(System.getProperty("report.dir", "target"), "trace-report.json");
+        simulator.writeReport(report);
+        System.out.print(simulator.report());
+        System.out.println("Report written to " + report);
+    }
+}
@@ -0,0 +1,121 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TraceSimulatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shortTraceReportsEveryMethodAndTheStateOverTime() throws IOException {
+        TraceSimulator.Config config = new TraceSimulator.Config().parse(new String[]{
+                "holders=200", "calls=5000", "callsPerBlock=100", "blockSeconds=3600", "sampleEveryBlocks=10"});
+        TraceSimulator simulator = new TraceSimulator(config);
+        simulator.run();
+
+        long calls = 0;
+        for (Map.Entry<String, TraceSimulator.MethodTimes> entry : simulator.times().entrySet()) {
+            TraceSimulator.MethodTimes times = entry.getValue();
+            assertTrue(entry.getKey(), times.calls() > 0);
+            assertTrue(entry.getKey(), times.percentile(50) <= times.percentile(99));
+            if (!entry.getKey().equals(TraceSimulator.SWEEP)) {
+                calls += times.calls();
+            }
+        }
+        assertEquals(5000, calls);
+
+        List<TraceSimulator.Sample> samples = simulator.samples();
+        assertTrue(samples.size() >= 3);
+        TraceSimulator.Sample first = samples.get(0);
+        TraceSimulator.Sample last = samples.get(samples.size() - 1);
+        assertTrue(last.time > first.time);
+        assertTrue(last.holders > first.holders);
+        assertTrue(last.checkpoints > first.checkpoints);
+        assertTrue(last.allowances > first.allowances);
+        assertTrue(last.lockEntries > first.lockEntries);
+        assertEquals(simulator.token().holderCount(), last.holders);
+
+        File report = new File(System.getProperty("report.dir", "target"), "trace-report.json");
+        simulator.writeReport(report);
+        assertTrue(report.length() > 0);
+    }
+
+    @Test
+    public void sameSeedReplaysTheSameTrace() throws IOException {
+        TraceSimulator.Config config = new TraceSimulator.Config().parse(new String[]{"holders=50", "calls=1000"});
+        TraceSimulator a = new TraceSimulator(config);
+        a.run();
+        TraceSimulator b = new TraceSimulator(config);
+        b.run();
+
+        TraceSimulator.Sample lastA = a.samples().get(a.samples().size() - 1);
+        TraceSimulator.Sample lastB = b.samples().get(b.samples().size() - 1);
+        assertEquals(lastA.holders, lastB.holders);
+        assertEquals(lastA.checkpoints, lastB.checkpoints);
+        assertEquals(lastA.lockEntries, lastB.lockEntries);
+        assertEquals(a.token().totalSupply(), b.token().totalSupply());
+    }
+
+    @Test
+    public void recordedTraceReplaysToTheSameState() throws IOException {
+        File trace = folder.newFile("trace.txt");
+        TraceSimulator recorded = new TraceSimulator(new TraceSimulator.Config().parse(new String[]{
+                "holders=50", "calls=2000", "callsPerBlock=50", "record=" + trace.getPath()}));
+        recorded.run();
+
+        TraceSimulator replayed = new TraceSimulator(new TraceSimulator.Config().parse(new String[]{
+                "holders=50", "trace=" + trace.getPath()}));
+        replayed.run();
+
+        assertEquals(recorded.samples().size(), replayed.samples().size());
+        TraceSimulator.Sample a = recorded.samples().get(recorded.samples().size() - 1);
+        TraceSimulator.Sample b = replayed.samples().get(replayed.samples().size() - 1);
+        assertEquals(a.time, b.time);
+        assertEquals(a.holders, b.holders);
+        assertEquals(a.checkpoints, b.checkpoints);
+        assertEquals(a.allowances, b.allowances);
+        assertEquals(a.lockEntries, b.lockEntries);
+        for (String method : recorded.times().keySet()) {
+            assertEquals(method, recorded.times().get(method).calls(), replayed.times().get(method).calls());
+            assertEquals(method, recorded.times().get(method).reverted, replayed.times().get(method).reverted);
+        }
+    }
+
+    @Test
+    public void handWrittenTraceDrivesTheClock() throws IOException {
+        File trace = folder.newFile("calls.txt");
+        Files.write(trace.toPath(), Arrays.asList(
+                "# block time method sender arguments",
+                "2 8640600 transfer owner alice 500",
+                "2 8640600 approve alice bob 100",
+                "3 8641200 addLockNormal owner alice 8641200,8641200 8727600,8814000 10,20",
+                "4 8641800 transferFrom bob alice carol 60",
+                "5 8900000 sweepExpiredLocks owner 10",
+                "6 8900600 transferFromBatch bob alice carol,dave 10,10"), StandardCharsets.UTF_8);
+        TraceSimulator simulator = new TraceSimulator(new TraceSimulator.Config().parse(new String[]{
+                "holders=0", "trace=" + trace.getPath()}));
+        simulator.run();
+
+        HenaToken token = simulator.token();
+        assertEquals(70, token.balanceOf(new Address("carol")).longValue());
+        assertEquals(20, token.allowance(new Address("alice"), new Address("bob")).longValue());
+        assertEquals(8900600, simulator.samples().get(simulator.samples().size() - 1).time);
+        assertEquals(1, simulator.times().get("sweepExpiredLocks").calls());
+        assertEquals(0, simulator.times().get("transferFrom").reverted);
+    }
+}
@@ -0,0 +1,115 @@
+package io.hena.token;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.RevertException;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class VestingTest extends TokenTestSupport {
+
+    private final Address carol = address("carol");
+
+    @Test
+    public void releasesLinearlyInWholeStepsAfterTheCliff() {
+        long start = now();
+        token.transfer(carol, amount(1200));
+        token.addLockVesting(carol, amount(1200), start, start + 300, start + 1200, 100);
+
+        assertEquals(0, available(carol));
+        setTime(start + 299);
+        assertEquals(0, available(carol));
+        setTime(start + 300);
+        assertEquals(300, available(carol));
+        setTime(start + 399);
+        assertEquals(300, available(carol));
+        setTime(start + 400);
+        assertEquals(400, available(carol));
+        setTime(start + 1200);
+        assertEquals(1200, available(carol));
+        setTime(start + 1201);
+        assertEquals("{}", token.getLockState(carol));
+    }
+
+    @Test
+    public void keepsSeveralEntriesPerAddress() {
+        long start = now();
+        token.transfer(carol, amount(1200));
+        token.addLockVesting(carol, amount(600), start, start, start + 600, 100);
+        token.addLockVesting(carol, amount(300), start, start + 300, start + 900, 300);
+        token.addLockVesting(carol, amount(300), start, start + 300, start + 900, 300);
+
+        assertEquals(2, events(Token.LockAddedEvent.class).size());
+        assertEquals(1, events(Token.LockUpdatedEvent.class).size());
+        assertEquals(0, available(carol));
+
+        setTime(start + 300);
+        assertEquals(300 + 200, available(carol));
+        List<String> locked = jsonValues(token.getLockStatePage(carol, 0, 10), "lockedBalance");
+        assertEquals(2, locked.size());
+        assertEquals("300", locked.get(0));
+        assertEquals("400", locked.get(1));
+
+        assertEquals(1, token.removeLock(4, carol, start + 600));
+        assertEquals(800, available(carol));
+        token.setLock(4, carol, start + 900, amount(900));
+        assertEquals(300 + 300, available(carol));
+    }
+
+    @Test
+    public void endTimeIdentifiesOneEntry() {
+        final long start = now();
+        token.transfer(carol, amount(1200));
+        token.addLockVesting(carol, amount(600), start, start + 100, start + 600, 100);
+
+        assertThrows(RevertException.class, () -> token.addLockVesting(carol, amount(600), start, start + 200, start + 600, 100));
+        assertThrows(RevertException.class, () -> token.addLockVesting(carol, amount(600), start, start + 100, start + 600, 50));
+
+        token.setLock(4, carol, start + 600, amount(0));
+        assertEquals(1200, available(carol));
+        assertEquals(1, token.removeLock(4, carol, start + 600));
+        assertThrows(RevertException.class, () -> token.removeLock(4, carol, start + 600));
+    }
+
+    @Test
+    public void eventsCarryTheWholeSchedule() {
+        long start = now();
+        token.addLockVesting(carol, amount(600), start, start + 100, start + 600, 50);
+        token.addLockVesting(carol, amount(600), start, start + 100, start + 600, 50);
+        token.setLock(4, carol, start + 600, amount(700));
+        token.removeLock(4, carol, start + 600);
+
+        Token.LockAddedEvent added = events(Token.LockAddedEvent.class).get(0);
+        assertEquals(new Token.LockAddedEvent(carol, 4, start, start + 100, start + 600, 50, amount(600)), added);
+        List<Token.LockUpdatedEvent> updated = events(Token.LockUpdatedEvent.class);
+        assertEquals(new Token.LockUpdatedEvent(carol, 4, start, start + 100, start + 600, 50, amount(1200)), updated.get(0));
+        assertEquals(new Token.LockUpdatedEvent(carol, 4, start, start + 100, start + 600, 50, amount(700)), updated.get(1));
+        assertEquals(new Token.LockRemovedEvent(carol, 4, start, start + 100, start + 600, 50, amount(700)),
+                events(Token.LockRemovedEvent.class).get(0));
+    }
+
+    @Test
+    public void rejectsInvalidSchedules() {
+        final long start = now();
+        assertThrows(RevertException.class, () -> token.addLockVesting(carol, amount(1), -1, start, start + 100, 10));
+        assertThrows(RevertException.class, () -> token.addLockVesting(carol, amount(1), start, start + 200, start + 100, 10));
+        assertThrows(RevertException.class, () -> token.addLockVesting(carol, amount(1), start, start, start + 100, 0));
+        assertThrows(RevertException.class, () -> token.addLockVesting(carol, amount(1), start - 200, start - 200, start - 100, 10));
+    }
+
+    @Test
+    public void lockedAmountMatchesExactArithmeticForLargeValues() {
+        long total = 9 * UNIT * 100000000L;
+        long end = 4000000000000000000L;
+        token.addLockVesting(carol, amount(total), 0, 0, end, 7);
+
+        long elapsed = now();
+        BigInteger vested = BigInteger.valueOf(elapsed / 7 * 7);
+        long expected = total - BigInteger.valueOf(total).multiply(vested).divide(BigInteger.valueOf(end)).longValue();
+        assertEquals(String.valueOf(expected), jsonValues(token.getLockStatePage(carol, 0, 10), "lockedBalance").get(0));
+    }
+}